@@ -0,0 +1,52 @@
+package ascii_art.img_to_char;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of rendering the glyphs of a charSet at the resolution the matcher counts their white pixels in, without
+ * the cache of CharRenderer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CharRendererBenchmark {
+    private static final String FONT_NAME = "Courier New";
+    private static final char FIRST_PRINTABLE_CHAR = ' ';
+
+    @Param({"10", "95"})
+    public int charSetSize;
+
+    private char[] charSet;
+
+    @Setup
+    public void setup() {
+        charSet = new char[charSetSize];
+        for (int i = 0; i < charSetSize; i++) {
+            charSet[i] = (char) (FIRST_PRINTABLE_CHAR + i);
+        }
+    }
+
+    @Benchmark
+    public boolean[][][] renderCharSet() {
+        boolean[][][] glyphs = new boolean[charSet.length][][];
+        for (int i = 0; i < charSet.length; i++) {
+            glyphs[i] = CharRenderer.render(charSet[i], BrightnessImgCharMatcher.RESOLUTION, FONT_NAME);
+        }
+        return glyphs;
+    }
+}
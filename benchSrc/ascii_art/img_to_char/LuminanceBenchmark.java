@@ -0,0 +1,57 @@
+package ascii_art.img_to_char;
+
+import image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of summing the grey levels of the sample images, with the scalar and the Vector API kernels.
+ * Run from the project's directory, the images are read from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LuminanceBenchmark {
+    @Param({"mickey.jpeg", "simpsons.jpeg"})
+    public String imageFile;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private Image image;
+
+    @Setup
+    public void setup() {
+        image = Image.fromFileNativeSize(imageFile, 0);
+        if (image == null) {
+            throw new IllegalStateException("Failed to open image file " + imageFile);
+        }
+        if (!LuminanceTable.useVectorKernel(kernel.equals("vector"))) {
+            throw new IllegalStateException("The Vector API isn't available");
+        }
+    }
+
+    @Benchmark
+    public LuminanceTable luminanceTable() {
+        return new LuminanceTable(image, LuminanceLut.ENCODED);
+    }
+
+    @Benchmark
+    public LuminancePyramid luminancePyramid() {
+        return new LuminancePyramid(image, LuminanceLut.ENCODED);
+    }
+}
@@ -0,0 +1,65 @@
+package ascii_art.img_to_char;
+
+import image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of matching the SubImages of the sample images to chars, at several resolutions and charSet sizes.
+ * Run from the project's directory, the images are read from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatcherBenchmark {
+    private static final String FONT_NAME = "Courier New";
+    private static final char FIRST_PRINTABLE_CHAR = ' ';
+
+    @Param({"mickey.jpeg", "simpsons.jpeg"})
+    public String imageFile;
+
+    @Param({"64", "128", "256"})
+    public int numCharsInRow;
+
+    @Param({"10", "95"})
+    public int charSetSize;
+
+    private Image image;
+    private Character[] charSet;
+
+    @Setup
+    public void setup() {
+        image = Image.fromFile(imageFile);
+        if (image == null) {
+            throw new IllegalStateException("Failed to open image file " + imageFile);
+        }
+        charSet = new Character[charSetSize];
+        for (int i = 0; i < charSetSize; i++) {
+            charSet[i] = (char) (FIRST_PRINTABLE_CHAR + i);
+        }
+    }
+
+    /**
+     * A new matcher every time, so the brightness of the image and of the chars is computed again. The glyphs of the
+     * chars come from the cache of CharRenderer, filled in the first warmup call: CharRendererBenchmark measures
+     * rendering them.
+     */
+    @Benchmark
+    public char[][] chooseChars() {
+        return new BrightnessImgCharMatcher(image, FONT_NAME).chooseChars(numCharsInRow, charSet);
+    }
+}
@@ -0,0 +1,85 @@
+package ascii_output;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of writing Ascii Art of several sizes with the AsciiOutput implementations, to a temporary file or to a
+ * stream discarding its bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputBenchmark {
+    private static final String FONT_NAME = "Courier New";
+    private static final String CHARS = " .:-=+*#%@&<>";
+    private static final long SEED = 42;
+
+    @Param({"128", "512"})
+    public int numCharsInRow;
+
+    private char[][] chars;
+    private Path htmlFile;
+    private Path textFile;
+    private HtmlAsciiOutput htmlOutput;
+    private TextAsciiOutput textOutput;
+    private ConsoleAsciiOutput consoleOutput;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(SEED);
+        chars = new char[numCharsInRow / 2][numCharsInRow];
+        for (char[] row : chars) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = CHARS.charAt(random.nextInt(CHARS.length()));
+            }
+        }
+        htmlFile = Files.createTempFile("ascii_benchmark", ".html");
+        textFile = Files.createTempFile("ascii_benchmark", ".txt");
+        htmlOutput = new HtmlAsciiOutput(htmlFile.toString(), FONT_NAME);
+        textOutput = new TextAsciiOutput(textFile.toString());
+        consoleOutput = new ConsoleAsciiOutput(new PrintStream(OutputStream.nullOutputStream()), true, false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(htmlFile);
+        Files.deleteIfExists(textFile);
+    }
+
+    @Benchmark
+    public void htmlOutput() {
+        htmlOutput.output(chars);
+    }
+
+    @Benchmark
+    public void textOutput() {
+        textOutput.output(chars);
+    }
+
+    @Benchmark
+    public void consoleOutput() {
+        consoleOutput.output(chars);
+    }
+}
@@ -0,0 +1,40 @@
+package image;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of loading the sample images.
+ * Run from the project's directory, the images are read from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageBenchmark {
+    @Param({"board.jpeg", "climbing.jpeg", "simpsons.jpeg"})
+    public String imageFile;
+
+    @Benchmark
+    public Image loadFileImage() throws IOException {
+        return new FileImage(imageFile);
+    }
+
+    @Benchmark
+    public Image loadRasterImage() throws IOException {
+        return new RasterImage(imageFile);
+    }
+}
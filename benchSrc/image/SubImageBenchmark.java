@@ -0,0 +1,54 @@
+package image;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of traversing the SubImages of the sample images, at several SubImage sizes.
+ * Run from the project's directory, the images are read from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubImageBenchmark {
+    @Param({"board.jpeg", "climbing.jpeg", "simpsons.jpeg"})
+    public String imageFile;
+
+    @Param({"4", "16"})
+    public int subImageSize;
+
+    private Image image;
+
+    @Setup
+    public void setup() throws IOException {
+        image = new RasterImage(imageFile);
+    }
+
+    @Benchmark
+    public long iterateSubImages() {
+        long sum = 0;
+        for (SubImage subImage : image.SubimageIterator(subImageSize)) {
+            for (int x = 0; x < subImage.getHeight(); x++) {
+                for (int y = 0; y < subImage.getWidth(); y++) {
+                    sum += subImage.getRGB(x, y);
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,296 @@
+package ascii_art;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import ascii_art.img_to_char.ColoredChars;
+import ascii_output.ColorHtmlAsciiOutput;
+import ascii_output.HtmlAsciiOutput;
+import ascii_output.TextAsciiOutput;
+import image.Image;
+import metrics.Stage;
+import metrics.StageMetrics;
+import metrics.StageTimer;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Class for BatchConverter - converts every image of a directory (or matching a glob) to AsciiArt files without the
+ * interactive Shell, and prints the throughput of the conversion.
+ * The images go through a StagedPipeline of four stages, each with its own threads: decode (reading the image file,
+ * I/O bound), analyze (the brightness of the SubImages), match (choosing the chars) and write (the output file, I/O
+ * bound). Between two stages at most as many images wait as the largest number of threads of a stage.
+ * A decoded image is kept from its decoding until its chars are chosen, so at most decodeThreads + analyzeThreads +
+ * matchThreads + 2 * that queue capacity images are in memory at the same time: 5 times the number of threads with
+ * the same number of threads for every stage.
+ */
+public class BatchConverter {
+    public static final String HTML_FORMAT = "html";
+    public static final String TEXT_FORMAT = "txt";
+    public static final String GZIP_HTML_FORMAT = "html.gz";
+    public static final String COLOR_HTML_FORMAT = "color.html";
+    private static final String STATS_FORMAT =
+            "Converted %d/%d images (%.1f MB) in %.2fs: %.1f images/s, %.2f MB/s%n";
+    private static final double NANOS_IN_SECOND = 1e9;
+    private static final double BYTES_IN_MB = 1024 * 1024;
+    private static final String DECODE_STAGE = "decode";
+    private static final String ANALYZE_STAGE = "analyze";
+    private static final String MATCH_STAGE = "match";
+    private static final String WRITE_STAGE = "write";
+
+    private final List<Path> sources;
+    private final Character[] charSet;
+    private final int charsInRow;
+    private final String format;
+    private final Path outputDir;
+    private final int decodeThreads;
+    private final int analyzeThreads;
+    private final int matchThreads;
+    private final int writeThreads;
+
+    /**
+     * Constructor for BatchConverter, with the same number of threads for every stage.
+     * @param sources the image files to convert
+     * @param charSet the charSet - set of given Ascii Characters
+     * @param charsInRow number of chars in each row, clamped to what each image allows
+     * @param format output format, HTML_FORMAT, GZIP_HTML_FORMAT, COLOR_HTML_FORMAT or TEXT_FORMAT
+     * @param outputDir directory the AsciiArt files are written to, one per image
+     * @param threads number of images each stage converts at the same time
+     */
+    public BatchConverter(List<Path> sources, Character[] charSet, int charsInRow, String format, Path outputDir,
+                          int threads) {
+        this(sources, charSet, charsInRow, format, outputDir, threads, threads, threads, threads);
+    }
+
+    /**
+     * Constructor for BatchConverter.
+     * @param sources the image files to convert
+     * @param charSet the charSet - set of given Ascii Characters
+     * @param charsInRow number of chars in each row, clamped to what each image allows
+     * @param format output format, HTML_FORMAT, GZIP_HTML_FORMAT, COLOR_HTML_FORMAT or TEXT_FORMAT
+     * @param outputDir directory the AsciiArt files are written to, one per image
+     * @param decodeThreads number of images decoded at the same time
+     * @param analyzeThreads number of images analyzed at the same time
+     * @param matchThreads number of images matched to chars at the same time
+     * @param writeThreads number of AsciiArt files written at the same time
+     */
+    public BatchConverter(List<Path> sources, Character[] charSet, int charsInRow, String format, Path outputDir,
+                          int decodeThreads, int analyzeThreads, int matchThreads, int writeThreads) {
+        if (!isFormat(format)) {
+            throw new IllegalArgumentException("Unknown output format: " + format);
+        }
+        this.sources = sources;
+        this.charSet = charSet;
+        this.charsInRow = charsInRow;
+        this.format = format;
+        this.outputDir = outputDir;
+        this.decodeThreads = decodeThreads;
+        this.analyzeThreads = analyzeThreads;
+        this.matchThreads = matchThreads;
+        this.writeThreads = writeThreads;
+    }
+
+    /**
+     * Checks if a string names an output format.
+     * @param format the format's name
+     * @return True if it is HTML_FORMAT, GZIP_HTML_FORMAT, COLOR_HTML_FORMAT or TEXT_FORMAT, false otherwise.
+     */
+    public static boolean isFormat(String format) {
+        return format.equals(HTML_FORMAT) || format.equals(GZIP_HTML_FORMAT) || format.equals(COLOR_HTML_FORMAT) ||
+                format.equals(TEXT_FORMAT);
+    }
+
+    /**
+     * Lists the images to convert.
+     * @param dirOrGlob a directory, in which case all of its image files are listed, or a glob pattern on file
+     * names such as "photos/*.jpeg"
+     * @return the matching files, sorted by name
+     * @throws IOException if the directory can't be listed
+     */
+    public static List<Path> findImages(String dirOrGlob) throws IOException {
+        Path path = Paths.get(dirOrGlob);
+        boolean isDirectory = Files.isDirectory(path);
+        Path dir = isDirectory ? path : path.getParent() == null ? Paths.get(".") : path.getParent();
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + path.getFileName());
+        TreeSet<Path> images = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) &&
+                        (isDirectory ? isImageFile(file) : matcher.matches(file.getFileName()))) {
+                    images.add(file);
+                }
+            }
+        }
+        return new ArrayList<>(images);
+    }
+
+    /**
+     * Checks if a file has the suffix of an image format that can be read.
+     * @param file a file
+     * @return True if the file's suffix is an image suffix, false otherwise.
+     */
+    private static boolean isImageFile(Path file) {
+        String name = file.getFileName().toString();
+        String suffix = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return Arrays.asList(ImageIO.getReaderFileSuffixes()).contains(suffix);
+    }
+
+    /**
+     * Parses a charSet given the same way as to the Shell's add command (a char, a range such as "a-z", or "all").
+     * @param charsParam the chars parameter
+     * @return the charSet sorted, or null if the parameter is invalid
+     */
+    public static Character[] parseCharSet(String charsParam) {
+        char[] range = Shell.parseCharData(charsParam, true);
+        if (range == null) {
+            return null;
+        }
+        Character[] chars = new Character[range[1] - range[0] + 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (range[0] + i);
+        }
+        return chars;
+    }
+
+    /**
+     * Clamps a number of chars in a row to what an image allows, like the Shell does.
+     * @param img the image
+     * @param charsInRow the requested number of chars in each row
+     * @return the number of chars in each row of the image's AsciiArt
+     */
+    static int imageCharsInRow(Image img, int charsInRow) {
+        int minCharsInRow = Math.max(1, img.getWidth() / img.getHeight());
+        int maxCharsInRow = img.getWidth() / Shell.MIN_PIXELS_PER_CHAR;
+        return Math.max(Math.min(charsInRow, maxCharsInRow), minCharsInRow);
+    }
+
+    /**
+     * Converts all the images through the pipeline and prints the throughput, the utilization of every stage of the
+     * pipeline and the time spent in every stage of a conversion, once done. A failure to convert one image is
+     * logged and doesn't stop the others.
+     * @return the number of images converted, not counting the failed ones
+     * @throws InterruptedException if interrupted while waiting for the conversions
+     */
+    public int run() throws InterruptedException {
+        long start = System.nanoTime();
+        List<Conversion> conversions = new ArrayList<>(sources.size());
+        for (Path source : sources) {
+            conversions.add(new Conversion(source));
+        }
+        int queueCapacity = Math.max(Math.max(decodeThreads, analyzeThreads), Math.max(matchThreads, writeThreads));
+        StagedPipeline<Conversion> pipeline = new StagedPipeline<Conversion>(queueCapacity)
+                .addStage(DECODE_STAGE, decodeThreads, this::decode)
+                .addStage(ANALYZE_STAGE, analyzeThreads, this::analyze)
+                .addStage(MATCH_STAGE, matchThreads, this::match)
+                .addStage(WRITE_STAGE, writeThreads, this::write);
+        List<Conversion> converted = pipeline.run(conversions);
+        long totalBytes = 0;
+        for (Conversion conversion : converted) {
+            totalBytes += conversion.sourceBytes;
+        }
+        double seconds = (System.nanoTime() - start) / NANOS_IN_SECOND;
+        double megabytes = totalBytes / BYTES_IN_MB;
+        System.out.printf(STATS_FORMAT, converted.size(), sources.size(), megabytes, seconds,
+                converted.size() / seconds, megabytes / seconds);
+        System.out.print(pipeline.report());
+        System.out.print(StageMetrics.report());
+        return converted.size();
+    }
+
+    /**
+     * Decodes the image file of a conversion.
+     * @param conversion the conversion
+     * @throws IOException if the image can't be opened
+     */
+    private void decode(Conversion conversion) throws IOException {
+        conversion.sourceBytes = Files.size(conversion.source);
+        Image img = Image.fromFileNativeSize(conversion.source.toString(), charsInRow * Shell.MIN_PIXELS_PER_CHAR);
+        if (img == null) {
+            throw new IOException("Failed to open image file " + conversion.source);
+        }
+        conversion.imageCharsInRow = imageCharsInRow(img, charsInRow);
+        conversion.matcher = new BrightnessImgCharMatcher(img, Shell.FONT_NAME);
+    }
+
+    /**
+     * Computes the brightness of the SubImages of a conversion. Colored conversions average the colors and the
+     * brightness in a single pass while matching instead.
+     * @param conversion the conversion
+     */
+    private void analyze(Conversion conversion) {
+        if (!format.equals(COLOR_HTML_FORMAT)) {
+            conversion.matcher.analyze(conversion.imageCharsInRow);
+        }
+    }
+
+    /**
+     * Chooses the chars (and colors) of a conversion, and drops its image.
+     * @param conversion the conversion
+     */
+    private void match(Conversion conversion) {
+        if (format.equals(COLOR_HTML_FORMAT)) {
+            ColoredChars coloredChars = conversion.matcher.chooseColoredChars(conversion.imageCharsInRow, charSet);
+            conversion.chars = coloredChars.getChars();
+            conversion.colors = coloredChars.getColors();
+        }
+        else {
+            conversion.chars = conversion.matcher.chooseChars(conversion.imageCharsInRow, charSet);
+        }
+        conversion.matcher = null;
+    }
+
+    /**
+     * Writes the AsciiArt file of a conversion.
+     * @param conversion the conversion
+     * @throws IOException if the file can't be written, in which case the conversion fails
+     */
+    private void write(Conversion conversion) throws IOException {
+        String outputFile = outputDir.resolve(conversion.source.getFileName() + "." + format).toString();
+        try (StageTimer timer = StageTimer.start(Stage.OUTPUT)) {
+            if (format.equals(COLOR_HTML_FORMAT)) {
+                new ColorHtmlAsciiOutput(outputFile, Shell.FONT_NAME).writeFile(conversion.chars, conversion.colors);
+            }
+            else if (format.equals(TEXT_FORMAT)) {
+                new TextAsciiOutput(outputFile).writeFile(conversion.chars);
+            }
+            else {
+                new HtmlAsciiOutput(outputFile, Shell.FONT_NAME, format.equals(GZIP_HTML_FORMAT))
+                        .writeFile(conversion.chars);
+            }
+            timer.setItems((long) conversion.chars.length * conversion.chars[0].length);
+        }
+        conversion.chars = null;
+        conversion.colors = null;
+    }
+
+    /**
+     * The state of the conversion of one image, carried from stage to stage.
+     */
+    private static class Conversion {
+        private final Path source;
+        private long sourceBytes;
+        private int imageCharsInRow;
+        private BrightnessImgCharMatcher matcher;
+        private char[][] chars;
+        private int[][] colors;
+
+        Conversion(Path source) {
+            this.source = source;
+        }
+
+        @Override
+        public String toString() {
+            return source.toString();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package ascii_art;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import ascii_art.img_to_char.ColoredChars;
+import ascii_output.ColorHtmlAsciiOutput;
+import ascii_output.HtmlAsciiOutput;
+import ascii_output.TextAsciiOutput;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import image.Image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Class for ConversionServer - serves AsciiArt conversions over HTTP on the loopback interface, so that tools
+ * converting many images start the JVM once instead of once per image.
+ * GET /convert?path=&lt;image file&gt;&amp;chars=&lt;chars&gt;&amp;charsInRow=&lt;n&gt;&amp;format=&lt;html|color.html|txt&gt;
+ * converts an image file of the server's machine, POST /convert with the same parameters but the path converts the
+ * image file sent as the request's body, of at most maxUploadBytes (32 MiB by default).
+ * Every request runs on a virtual thread when the JVM has them (on a pool of one platform thread per processor
+ * otherwise), and concurrent requests for the same conversion of the same image share a single computation.
+ * The server has no authentication: any local client, of any user of the machine, can convert (and so read) any
+ * file the server's process can read with path=.
+ */
+public class ConversionServer {
+    public static final String CONTEXT = "/convert";
+    private static final String PATH_PARAM = "path";
+    private static final String CHARS_PARAM = "chars";
+    private static final String CHARS_IN_ROW_PARAM = "charsInRow";
+    private static final String FORMAT_PARAM = "format";
+    private static final String DEFAULT_CHARS = Shell.ALL_CHARS;
+    private static final int DEFAULT_CHARS_IN_ROW = 64;
+    private static final String GET = "GET";
+    private static final String POST = "POST";
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int PAYLOAD_TOO_LARGE = 413;
+    private static final int UNPROCESSABLE = 422;
+    private static final int INTERNAL_ERROR = 500;
+    private static final int BACKLOG = 128;
+    private static final int DEFAULT_MAX_UPLOAD_BYTES = 32 << 20;
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String VIRTUAL_THREAD_EXECUTOR = "newVirtualThreadPerTaskExecutor";
+
+    private final HttpServer server;
+    private final int maxUploadBytes;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder conversions = new LongAdder();
+    private final LongAdder coalescedRequests = new LongAdder();
+
+    /**
+     * Constructor for ConversionServer, the server starts accepting requests once started.
+     * @param port the port to listen to on the loopback interface, 0 for any free port
+     * @throws IOException if the port can't be bound
+     */
+    public ConversionServer(int port) throws IOException {
+        this(port, DEFAULT_MAX_UPLOAD_BYTES);
+    }
+
+    /**
+     * Constructor for ConversionServer, the server starts accepting requests once started.
+     * @param port the port to listen to on the loopback interface, 0 for any free port
+     * @param maxUploadBytes maximal size of an image file sent as a request's body, larger ones are rejected
+     * @throws IOException if the port can't be bound
+     */
+    public ConversionServer(int port, int maxUploadBytes) throws IOException {
+        if (maxUploadBytes < 1) {
+            throw new IllegalArgumentException("maxUploadBytes must be positive: " + maxUploadBytes);
+        }
+        this.maxUploadBytes = maxUploadBytes;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext(CONTEXT, this::handle);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and closes the server, without waiting for the requests being handled.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Getter for the port the server listens to
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Getter for the number of conversions computed
+     * @return number of conversions, not counting the requests that shared another request's conversion
+     */
+    public long getConversions() {
+        return conversions.sum();
+    }
+
+    /**
+     * Getter for the number of requests that shared the conversion of an identical request in flight
+     * @return number of coalesced requests
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.sum();
+    }
+
+    /**
+     * An executor running every task on a new virtual thread if the JVM has virtual threads, and on a fixed pool of
+     * one platform thread per processor otherwise, the other requests waiting in its queue.
+     * @return the executor
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR).invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Handles a conversion request and sends its response.
+     * @param exchange the request and its response
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals(GET) && !method.equals(POST)) {
+                sendText(exchange, METHOD_NOT_ALLOWED, "Only GET and POST are supported");
+                return;
+            }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            Character[] charSet = BatchConverter.parseCharSet(params.getOrDefault(CHARS_PARAM, DEFAULT_CHARS));
+            String format = params.getOrDefault(FORMAT_PARAM, BatchConverter.HTML_FORMAT);
+            int charsInRow = parsePositive(params.getOrDefault(CHARS_IN_ROW_PARAM,
+                    String.valueOf(DEFAULT_CHARS_IN_ROW)));
+            if (charSet == null || charsInRow < 1 || !(format.equals(BatchConverter.HTML_FORMAT) ||
+                    format.equals(BatchConverter.COLOR_HTML_FORMAT) || format.equals(BatchConverter.TEXT_FORMAT))) {
+                sendText(exchange, BAD_REQUEST, "Expected chars=<chars>, charsInRow=<positive number> and " +
+                        "format=<html|color.html|txt>");
+                return;
+            }
+            byte[] upload = readUpload(exchange);
+            if (upload == null) {
+                sendText(exchange, PAYLOAD_TOO_LARGE, "The image file must be at most " + maxUploadBytes + " bytes");
+                return;
+            }
+            String path = params.get(PATH_PARAM);
+            if (upload.length == 0 && path == null) {
+                sendText(exchange, BAD_REQUEST, "Expected an image file as the body, or path=<image file>");
+                return;
+            }
+            byte[] response;
+            try {
+                String source = upload.length > 0 ? "upload:" + digest(upload) : "path:" + fileIdentity(path);
+                String key = source + "|" + String.valueOf(toChars(charSet)) + "|" + charsInRow + "|" + format;
+                response = coalesce(key, () -> {
+                    Image img = upload.length > 0 ?
+                            Image.fromBytes(upload, charsInRow * Shell.MIN_PIXELS_PER_CHAR) :
+                            Image.fromFileNativeSize(path, charsInRow * Shell.MIN_PIXELS_PER_CHAR);
+                    if (img == null) {
+                        throw new IOException("unsupported or corrupted image");
+                    }
+                    return convert(img, charSet, charsInRow, format);
+                });
+            } catch (IOException e) {
+                sendText(exchange, UNPROCESSABLE, "Failed to open the image: " + e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                Logger.getGlobal().severe("Failed to convert: " + e);
+                sendText(exchange, INTERNAL_ERROR, "Failed to convert the image");
+                return;
+            }
+            String contentType = format.equals(BatchConverter.TEXT_FORMAT) ? "text/plain" : "text/html";
+            exchange.getResponseHeaders().set("Content-Type",
+                    contentType + "; charset=" + Charset.defaultCharset().name());
+            exchange.sendResponseHeaders(OK, response.length);
+            exchange.getResponseBody().write(response);
+        }
+    }
+
+    /**
+     * Reads the body of a request, without ever reading more than maxUploadBytes: a body announced or found larger
+     * is rejected without reading the rest of it.
+     * @param exchange the request
+     * @return the body, or null if it is larger than maxUploadBytes
+     * @throws IOException if the body can't be read
+     */
+    private byte[] readUpload(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst(CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > maxUploadBytes) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                // a chunked or malformed length, the read below bounds it anyway
+            }
+        }
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] upload = body.readNBytes(maxUploadBytes);
+            return body.read() == -1 ? upload : null;
+        }
+    }
+
+    /**
+     * Computes a conversion, unless an identical conversion is already being computed for another request, in which
+     * case it waits for that conversion's result instead.
+     * @param key identifies the image and the parameters of the conversion
+     * @param conversion computes the conversion
+     * @return the response of the conversion
+     * @throws IOException if the image can't be opened
+     */
+    private byte[] coalesce(String key, Conversion conversion) throws IOException {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        CompletableFuture<byte[]> inFlightResult = inFlight.putIfAbsent(key, result);
+        if (inFlightResult != null) {
+            coalescedRequests.increment();
+            result = inFlightResult;
+        }
+        else {
+            try {
+                conversions.increment();
+                result.complete(conversion.convert());
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, result);
+            }
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Converts an image to the response of a request.
+     * @return the AsciiArt, in the format's bytes
+     */
+    private static byte[] convert(Image img, Character[] charSet, int charsInRow, String format)
+            throws IOException {
+        int imageCharsInRow = BatchConverter.imageCharsInRow(img, charsInRow);
+        BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, Shell.FONT_NAME);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        switch (format) {
+            case BatchConverter.COLOR_HTML_FORMAT:
+                ColoredChars coloredChars = matcher.chooseColoredChars(imageCharsInRow, charSet);
+                ColorHtmlAsciiOutput.write(coloredChars.getChars(), coloredChars.getColors(), Shell.FONT_NAME,
+                        Channels.newChannel(out));
+                break;
+            case BatchConverter.TEXT_FORMAT:
+                Writer writer = new OutputStreamWriter(out, Charset.defaultCharset());
+                TextAsciiOutput.write(matcher.chooseChars(imageCharsInRow, charSet), writer);
+                writer.flush();
+                break;
+            default:
+                HtmlAsciiOutput.write(matcher.chooseChars(imageCharsInRow, charSet), Shell.FONT_NAME,
+                        Channels.newChannel(out));
+        }
+        return out.toByteArray();
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Parses the parameters of a query string.
+     * @param rawQuery the query, still URL encoded, or null
+     * @return the decoded parameters by name
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String param : rawQuery.split("&")) {
+            int equals = param.indexOf('=');
+            if (equals > 0) {
+                params.put(URLDecoder.decode(param.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(param.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Parses a positive number.
+     * @return the number, or 0 if the text isn't a positive number
+     */
+    private static int parsePositive(String text) {
+        try {
+            return Math.max(0, Integer.parseInt(text));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Identifies an image file and its version: its absolute path, size and modification time.
+     */
+    private static String fileIdentity(String path) throws IOException {
+        Path file = Paths.get(path).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return file + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance(DIGEST_ALGORITHM).digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static char[] toChars(Character[] charSet) {
+        char[] chars = new char[charSet.length];
+        for (int i = 0; i < charSet.length; i++) {
+            chars[i] = charSet[i];
+        }
+        return chars;
+    }
+
+    /**
+     * A conversion of an image to the response of a request.
+     */
+    private interface Conversion {
+        byte[] convert() throws IOException;
+    }
+}
@@ -2,22 +2,216 @@ package ascii_art;
 
 import ascii_art.img_to_char.BrightnessImgCharMatcher;
 import ascii_art.img_to_char.CharRenderer;
+import ascii_art.img_to_char.FrameSequenceMatcher;
+import ascii_output.AnsiAsciiAnimationOutput;
+import ascii_output.AsciiAnimationOutput;
+import ascii_output.HtmlAsciiAnimationOutput;
 import image.Image;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Logger;
 
 public class Driver {
+    private static final String USAGE = "USAGE: java asciiArt <image file> [max chars in row]\n" +
+            "       java asciiArt batch <image directory or glob> <chars> <chars in row> <html|html.gz|color.html|txt> " +
+            "<output directory> [threads | decode,analyze,match,write threads]\n" +
+            "       java asciiArt animate <gif or frames directory> <chars> <chars in row> <html|ansi> " +
+            "[frame delay ms]\n" +
+            "       java asciiArt serve <port>\n" +
+            "       any of the above can start with --raster-cache <directory> to keep decoded images there";
+    private static final String BATCH_MODE = "batch";
+    private static final String ANIMATE_MODE = "animate";
+    private static final String SERVE_MODE = "serve";
+    private static final String RASTER_CACHE_OPTION = "--raster-cache";
+    private static final String HTML_FORMAT = "html";
+    private static final String ANSI_FORMAT = "ansi";
+    private static final int DEFAULT_FRAME_DELAY_MILLIS = 100;
+    private static final int MAX_PORT = 65535;
+    private static final String STAGE_THREADS_SEPARATOR = ",";
+    private static final int PIPELINE_STAGES = 4;
+
     public static void main(String[] args) throws Exception {
-        if (args.length != 1) {
-            System.err.println("USAGE: java asciiArt ");
+        if (args.length >= 2 && args[0].equals(RASTER_CACHE_OPTION)) {
+            if (!Image.useRasterCache(args[1])) {
+                Logger.getGlobal().severe("Failed to open raster cache directory " + args[1]);
+                return;
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length > 0 && args[0].equals(BATCH_MODE)) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(ANIMATE_MODE)) {
+            runAnimation(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(SERVE_MODE)) {
+            runServer(args);
+            return;
+        }
+        if (args.length != 1 && args.length != 2) {
+            System.err.println(USAGE);
             return;
         }
-        Image img = Image.fromFile(args[0]);
+        Image img;
+        if (args.length == 2) {
+            int maxCharsInRow;
+            try {
+                maxCharsInRow = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.err.println(USAGE);
+                return;
+            }
+            img = Image.fromFileNativeSize(args[0], maxCharsInRow * Shell.MIN_PIXELS_PER_CHAR);
+        }
+        else {
+            img = Image.fromFileNativeSize(args[0], 0);
+        }
         if (img == null) {
             Logger.getGlobal().severe("Failed to open image file " + args[0]);
             return;
         }
         new Shell(img).run();
     }
+
+    /**
+     * Converts a batch of images without the interactive Shell.
+     * @param args the command line arguments, starting with BATCH_MODE
+     * @throws Exception
+     */
+    private static void runBatch(String[] args) throws Exception {
+        if (args.length != 6 && args.length != 7) {
+            System.err.println(USAGE);
+            return;
+        }
+        Character[] charSet = BatchConverter.parseCharSet(args[2]);
+        int charsInRow;
+        int[] stageThreads;
+        try {
+            charsInRow = Integer.parseInt(args[3]);
+            stageThreads = args.length == 7 ? parseStageThreads(args[6]) :
+                    parseStageThreads(Integer.toString(Runtime.getRuntime().availableProcessors()));
+        } catch (NumberFormatException e) {
+            System.err.println(USAGE);
+            return;
+        }
+        if (charSet == null || charsInRow < 1 || stageThreads == null || !BatchConverter.isFormat(args[4])) {
+            System.err.println(USAGE);
+            return;
+        }
+        List<Path> images = BatchConverter.findImages(args[1]);
+        Path outputDir = Paths.get(args[5]);
+        Files.createDirectories(outputDir);
+        new BatchConverter(images, charSet, charsInRow, args[4], outputDir, stageThreads[0], stageThreads[1],
+                stageThreads[2], stageThreads[3]).run();
+    }
+
+    /**
+     * Parses the threads of the stages of the batch pipeline: a single number for every stage, or one number per
+     * stage separated by commas.
+     * @param threadsParam the threads parameter
+     * @return the threads of the decode, analyze, match and write stages, or null if a number isn't positive or
+     * there isn't one per stage
+     * @throws NumberFormatException if a number can't be parsed
+     */
+    private static int[] parseStageThreads(String threadsParam) {
+        String[] counts = threadsParam.split(STAGE_THREADS_SEPARATOR);
+        if (counts.length != 1 && counts.length != PIPELINE_STAGES) {
+            return null;
+        }
+        int[] stageThreads = new int[PIPELINE_STAGES];
+        for (int i = 0; i < PIPELINE_STAGES; i++) {
+            stageThreads[i] = Integer.parseInt(counts[counts.length == 1 ? 0 : i]);
+            if (stageThreads[i] < 1) {
+                return null;
+            }
+        }
+        return stageThreads;
+    }
+
+    /**
+     * Serves conversions over HTTP until the process is stopped.
+     * @param args the command line arguments, starting with SERVE_MODE
+     * @throws IOException if the port can't be bound
+     */
+    private static void runServer(String[] args) throws IOException {
+        int port;
+        try {
+            port = args.length == 2 ? Integer.parseInt(args[1]) : -1;
+        } catch (NumberFormatException e) {
+            port = -1;
+        }
+        if (port < 0 || port > MAX_PORT) {
+            System.err.println(USAGE);
+            return;
+        }
+        ConversionServer server = new ConversionServer(port);
+        server.start();
+        System.err.printf("Serving conversions on http://localhost:%d%s%n", server.getPort(),
+                ConversionServer.CONTEXT);
+    }
+
+    /**
+     * Converts the frames of an animation, reconverting only the SubImages that changed between frames.
+     * @param args the command line arguments, starting with ANIMATE_MODE
+     */
+    private static void runAnimation(String[] args) {
+        if (args.length != 5 && args.length != 6) {
+            System.err.println(USAGE);
+            return;
+        }
+        Character[] charSet = BatchConverter.parseCharSet(args[2]);
+        int charsInRow, frameDelayMillis;
+        try {
+            charsInRow = Integer.parseInt(args[3]);
+            frameDelayMillis = args.length == 6 ? Integer.parseInt(args[5]) : DEFAULT_FRAME_DELAY_MILLIS;
+        } catch (NumberFormatException e) {
+            System.err.println(USAGE);
+            return;
+        }
+        if (charSet == null || charsInRow < 1 || frameDelayMillis < 0 ||
+                !(args[4].equals(HTML_FORMAT) || args[4].equals(ANSI_FORMAT))) {
+            System.err.println(USAGE);
+            return;
+        }
+        Iterator<Image> frames = Image.framesFromFile(args[1]);
+        List<char[][]> asciiFrames = new ArrayList<>();
+        long changedSubImages = 0, subImages = 0;
+        try {
+            if (frames == null || !frames.hasNext()) {
+                Logger.getGlobal().severe("Failed to open animation " + args[1]);
+                return;
+            }
+            // the frames are decoded one at a time, only the previous one is kept to find the changed SubImages
+            Image frame = frames.next();
+            int minCharsInRow = Math.max(1, frame.getWidth() / frame.getHeight());
+            int maxCharsInRow = frame.getWidth() / Shell.MIN_PIXELS_PER_CHAR;
+            charsInRow = Math.max(Math.min(charsInRow, maxCharsInRow), minCharsInRow);
+            FrameSequenceMatcher matcher = new FrameSequenceMatcher(Shell.FONT_NAME, charsInRow, charSet);
+            for (; frame != null; frame = frames.hasNext() ? frames.next() : null) {
+                char[][] chars = matcher.chooseChars(frame);
+                asciiFrames.add(chars);
+                changedSubImages += matcher.getChangedSubImages();
+                subImages += (long) chars.length * (chars.length == 0 ? 0 : chars[0].length);
+            }
+        } catch (UncheckedIOException e) {
+            Logger.getGlobal().severe(String.format("Failed to read frame %d of %s: %s", asciiFrames.size() + 1,
+                    args[1], e.getCause()));
+            return;
+        }
+        AsciiAnimationOutput output = args[4].equals(HTML_FORMAT) ?
+                new HtmlAsciiAnimationOutput(Shell.OUTPUT_FILENAME, Shell.FONT_NAME) : new AnsiAsciiAnimationOutput();
+        output.output(asciiFrames, frameDelayMillis);
+        System.err.printf("Converted %d frames, %d of %d SubImages changed%n",
+                asciiFrames.size(), changedSubImages, subImages);
+    }
 }
\ No newline at end of file
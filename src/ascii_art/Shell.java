@@ -1,11 +1,17 @@
 package ascii_art;
 
 import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import ascii_art.img_to_char.ErrorDiffusion;
 import ascii_output.AsciiOutput;
+import ascii_output.ConsoleAsciiOutput;
 import ascii_output.HtmlAsciiOutput;
+import ascii_output.TimedAsciiOutput;
 import image.Image;
+import metrics.StageMetrics;
 
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
 
@@ -19,7 +25,18 @@ public class Shell {
     private final BrightnessImgCharMatcher brightnessImgCharMatcher;
     private final AsciiOutput asciiOutput;
     private boolean console = false;
+    private boolean shapeMatching = false;
+    private ErrorDiffusion dithering = null;
+    private AsciiOutput consoleOutput = new TimedAsciiOutput(new ConsoleAsciiOutput(System.out, false, false));
     private Set<Character>  charSet = new HashSet<>();
+    private final Map<String, char[][]> renderCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, char[][]> eldest) {
+            return size() > MAX_CACHED_RENDERS;
+        }
+    };
+    private int renderCacheHits = 0;
+    private int renderCacheMisses = 0;
 
     private static final String ENTER_CMD_GUI = ">>>";
     private final Scanner input = new Scanner(System.in);
@@ -31,11 +48,21 @@ public class Shell {
     private static final String CHANGE_RESOLUTION = "res";
     private static final String RENDER = "render";
     private static final String CONSOLE = "console";
+    private static final String SHOW_CACHE = "cache";
+    private static final String MATCHING = "match";
+    private static final String MATCH_BRIGHTNESS = "brightness";
+    private static final String MATCH_SHAPE = "shape";
+    private static final String DITHERING = "dither";
+    private static final String DITHER_NONE = "none";
+    private static final String DITHER_FLOYD_STEINBERG = "fs";
+    private static final String DITHER_ATKINSON = "atkinson";
+    private static final String SHOW_STATS = "stats";
+    private static final String RESET_STATS = "reset";
     private static final String EXIT_SHELL = "exit";
     private static final int INITIAL_CHARS_IN_ROW = 64;
-    private static final int MIN_PIXELS_PER_CHAR = 2;
-    private static final String FONT_NAME = "Courier New";
-    private static final String OUTPUT_FILENAME = "out.html";
+    static final int MIN_PIXELS_PER_CHAR = 2;
+    static final String FONT_NAME = "Courier New";
+    static final String OUTPUT_FILENAME = "out.html";
     private static final String INITIAL_CHARS_RANGE = "0-9";
     private static final String WIDTH_SET_TO = "Width set to: ";
     private static final String RESOLUTION_UP = "up";
@@ -49,6 +76,8 @@ public class Shell {
     public static final char CHAR_HYPHEN = '-';
     public static final String SPACE = " ";
     private static final int RESOLUTION_FACTOR = 2;
+    private static final int MAX_CACHED_RENDERS = 16;
+    private static final String CACHE_STATS_FORMAT = "Render cache: %d hits, %d misses, %d/%d renders cached%n";
 
     /**
      * Constructor for Shell Class.
@@ -58,8 +87,9 @@ public class Shell {
         minCharsInRow = Math.max(1, img.getWidth()/img.getHeight());
         maxCharsInRow = img.getWidth() / MIN_PIXELS_PER_CHAR;
         charsInRow = Math.max(Math.min(INITIAL_CHARS_IN_ROW,maxCharsInRow), minCharsInRow);
-        brightnessImgCharMatcher = new BrightnessImgCharMatcher(img, FONT_NAME);
-        asciiOutput = new HtmlAsciiOutput(OUTPUT_FILENAME, FONT_NAME);
+        brightnessImgCharMatcher = new BrightnessImgCharMatcher(img, FONT_NAME,
+                Runtime.getRuntime().availableProcessors());
+        asciiOutput = new TimedAsciiOutput(new HtmlAsciiOutput(OUTPUT_FILENAME, FONT_NAME));
         addChars(INITIAL_CHARS_RANGE);
     }
 
@@ -70,7 +100,7 @@ public class Shell {
      * print in case of invalid add/remove commands with wrong parameter syntax.
      * @return an array of 2 chars that represents the range of Ascii chars add/remove from the charSet.
      */
-    private static char[] parseCharData(String charParam, boolean isAddOperation) {
+    static char[] parseCharData(String charParam, boolean isAddOperation) {
         switch (charParam) {
             case (SPACE):
                 return new char[]{SPACE_CHAR, SPACE_CHAR};
@@ -170,24 +200,93 @@ public class Shell {
      * rendering will be performed also to console and not just the out.html.
      */
     private void render(){
-        Character[] arr = new Character[charSet.size()];
-        char[][] charMatrix = brightnessImgCharMatcher.chooseChars(charsInRow, charSet.toArray(arr));
-        if (console) {
-            for (char[] charRow : charMatrix) {
-                for (char character : charRow) {
-                    System.out.print(character);
-                }
-                System.out.println();
+        Character[] arr = charSet.stream().sorted().toArray(Character[]::new);
+        String cacheKey = renderCacheKey(arr);
+        char[][] charMatrix = renderCache.get(cacheKey);
+        if (charMatrix == null) {
+            renderCacheMisses++;
+            if (shapeMatching) {
+                charMatrix = brightnessImgCharMatcher.chooseShapeChars(charsInRow, arr);
+            }
+            else if (dithering != null) {
+                charMatrix = brightnessImgCharMatcher.chooseDitheredChars(charsInRow, arr, dithering);
+            }
+            else {
+                charMatrix = brightnessImgCharMatcher.chooseChars(charsInRow, arr);
             }
+            renderCache.put(cacheKey, charMatrix);
+        }
+        else {
+            renderCacheHits++;
+        }
+        if (console) {
+            consoleOutput.output(charMatrix);
         }
         else {
             asciiOutput.output(charMatrix);
         }
     }
 
+    /**
+     * Builds the key of a rendering in the render cache: the sorted charSet, the resolution, the font, the matching
+     * mode and the dithering, which are all that the chars chosen for the image depend on.
+     * @param sortedChars the charSet, sorted
+     * @return the cache key
+     */
+    private String renderCacheKey(Character[] sortedChars) {
+        StringBuilder key = new StringBuilder();
+        for (Character c : sortedChars) {
+            key.append(c);
+        }
+        return key.append('|').append(charsInRow).append('|').append(FONT_NAME).append('|')
+                .append(shapeMatching ? MATCH_SHAPE : MATCH_BRIGHTNESS).append('|').append(dithering).toString();
+    }
+
+    /**
+     * Changes the dithering of the renderings matched by brightness according to the user's input: "dither fs" for
+     * Floyd-Steinberg, "dither atkinson" for Atkinson, "dither none" to stop dithering.
+     * @param ditheringParam none/fs/atkinson string that represents the dithering to use.
+     */
+    private void changeDithering(String ditheringParam) {
+        switch (ditheringParam) {
+            case DITHER_NONE:
+                dithering = null;
+                break;
+            case DITHER_FLOYD_STEINBERG:
+                dithering = ErrorDiffusion.FLOYD_STEINBERG;
+                break;
+            case DITHER_ATKINSON:
+                dithering = ErrorDiffusion.ATKINSON;
+                break;
+            default:
+                System.out.println(INVALID_COMMAND_ERROR);
+        }
+    }
+
+    /**
+     * prints the render cache hits and misses to the Shell window.
+     */
+    private void showCacheStats() {
+        System.out.printf(CACHE_STATS_FORMAT, renderCacheHits, renderCacheMisses, renderCache.size(),
+                MAX_CACHED_RENDERS);
+    }
+
+    /**
+     * prints the runs, items, time, throughput and allocations of every stage of the renderings to the Shell window
+     * ("stats reset" clears them instead).
+     * @param statsParam empty, or "reset"
+     */
+    private void showStats(String statsParam) {
+        if (statsParam.equals(RESET_STATS)) {
+            StageMetrics.reset();
+            return;
+        }
+        System.out.print(StageMetrics.report());
+    }
+
     /**
      * runs the Shell of AsciiArt creation program.
-     * Handles all kind of commands: add, remove, chars, render, console res up, res down.
+     * Handles all kind of commands: add, remove, chars, render, console res up, res down, cache, stats, match, dither.
      * Prints errors.
      */
     public void run() {
@@ -229,6 +328,30 @@ public class Shell {
                 case CHANGE_RESOLUTION:
                     changeResolutionLogic(parameters);
                     break;
+                case SHOW_CACHE:
+                    if (parameters.length() > 0) {
+                        System.out.println(INVALID_COMMAND_ERROR);
+                        break;
+                    }
+                    showCacheStats();
+                    break;
+                case MATCHING:
+                    if (!parameters.equals(MATCH_BRIGHTNESS) && !parameters.equals(MATCH_SHAPE)) {
+                        System.out.println(INVALID_COMMAND_ERROR);
+                        break;
+                    }
+                    shapeMatching = parameters.equals(MATCH_SHAPE);
+                    break;
+                case DITHERING:
+                    changeDithering(parameters);
+                    break;
+                case SHOW_STATS:
+                    if (parameters.length() > 0 && !parameters.equals(RESET_STATS)) {
+                        System.out.println(INVALID_COMMAND_ERROR);
+                        break;
+                    }
+                    showStats(parameters);
+                    break;
                 default:
                     System.out.println(INVALID_COMMAND_ERROR);
             }
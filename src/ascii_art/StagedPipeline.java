@@ -0,0 +1,256 @@
+package ascii_art;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Class for StagedPipeline - runs jobs through a sequence of stages, each with its own threads, connected by bounded
+ * queues. A stage takes a job from its queue, runs its task on it and puts it in the queue of the next stage, so the
+ * stages of different jobs run at the same time (one image decoding while another is matched and a third written).
+ * When a stage falls behind, its queue fills up and the stages before it block until it takes a job: at most
+ * queueCapacity jobs wait between two stages, however fast the stages before them are.
+ * Every stage counts the time its threads spend running tasks, waiting for a job and waiting for room in the next
+ * queue, to size the number of threads of each stage.
+ * @param <T> the type of the jobs, which carry their own state from stage to stage
+ */
+public class StagedPipeline<T> {
+    private static final String HEADER_FORMAT = "%-10s %7s %6s %6s %7s %7s %7s%n";
+    private static final String ROW_FORMAT = "%-10s %7d %6d %6d %6.1f%% %6.1f%% %6.1f%%%n";
+    private static final double PERCENT = 100;
+
+    private final int queueCapacity;
+    private final List<PipelineStage> stages = new ArrayList<>();
+    private final Object end = new Object();
+    private long wallNanos = 0;
+
+    /**
+     * A task of a stage, run on a job.
+     * @param <T> the type of the jobs
+     */
+    public interface StageTask<T> {
+        /**
+         * Runs the stage on a job, updating the job's state.
+         * @param job the job
+         * @throws Exception if the job failed, in which case it doesn't go on to the next stages
+         */
+        void run(T job) throws Exception;
+    }
+
+    /**
+     * Constructor for StagedPipeline.
+     * @param queueCapacity maximal number of jobs waiting for each stage
+     */
+    public StagedPipeline(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Adds a stage after the ones added before it.
+     * @param name name of the stage in the report
+     * @param threads number of jobs the stage runs at the same time
+     * @param task the task of the stage
+     * @return this pipeline
+     */
+    public StagedPipeline<T> addStage(String name, int threads, StageTask<T> task) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        stages.add(new PipelineStage(name, threads, task));
+        return this;
+    }
+
+    /**
+     * Runs jobs through all the stages, the calling thread feeding the first stage. A job that fails in a stage,
+     * throwing an exception or an error such as an OutOfMemoryError, is logged and dropped, the others go on.
+     * @param jobs the jobs
+     * @return the jobs that went through all the stages, in the order they finished
+     * @throws InterruptedException if interrupted while feeding or waiting for the stages
+     */
+    public List<T> run(Iterable<T> jobs) throws InterruptedException {
+        if (stages.isEmpty()) {
+            throw new IllegalStateException("The pipeline has no stage");
+        }
+        List<T> finished = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        BlockingQueue<Object> input = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Object> queue = input;
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < stages.size(); i++) {
+            BlockingQueue<Object> output = i == stages.size() - 1 ? null : new ArrayBlockingQueue<>(queueCapacity);
+            threads.addAll(stages.get(i).start(queue, output, finished, done));
+            queue = output;
+        }
+        for (T job : jobs) {
+            input.put(job);
+        }
+        input.put(end);
+        done.await();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        wallNanos = System.nanoTime() - start;
+        return finished;
+    }
+
+    /**
+     * Formats the utilization of every stage in the last run as a table: threads, jobs done and failed, and the
+     * share of the threads' time spent running tasks (busy), waiting for a job (starved) and waiting for room in
+     * the next queue (blocked). A busy stage with starved stages after it needs more threads, a blocked one fewer.
+     * @return the table, one line per stage
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format(HEADER_FORMAT, "stage", "threads", "jobs",
+                "failed", "busy", "starved", "blocked"));
+        for (PipelineStage stage : stages) {
+            double threadNanos = Math.max(1, (double) wallNanos * stage.threads);
+            report.append(String.format(ROW_FORMAT, stage.name, stage.threads, stage.jobs.sum(),
+                    stage.failures.sum(), PERCENT * stage.busyNanos.sum() / threadNanos,
+                    PERCENT * stage.starvedNanos.sum() / threadNanos,
+                    PERCENT * stage.blockedNanos.sum() / threadNanos));
+        }
+        return report.toString();
+    }
+
+    /**
+     * A stage of the pipeline, with the totals of its last run.
+     */
+    private class PipelineStage {
+        private final String name;
+        private final int threads;
+        private final StageTask<T> task;
+        private final LongAdder jobs = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder starvedNanos = new LongAdder();
+        private final LongAdder blockedNanos = new LongAdder();
+
+        PipelineStage(String name, int threads, StageTask<T> task) {
+            this.name = name;
+            this.threads = threads;
+            this.task = task;
+        }
+
+        /**
+         * Starts the threads of the stage. The last thread of the stage to stop passes the end of the jobs on to the
+         * next stage, or counts down done if this is the last stage.
+         * @param input the queue of the stage
+         * @param output the queue of the next stage, or null for the last stage
+         * @param finished the jobs that went through all the stages
+         * @param done counted down once the last stage is over
+         * @return the threads
+         */
+        List<Thread> start(BlockingQueue<Object> input, BlockingQueue<Object> output, List<T> finished,
+                           CountDownLatch done) {
+            jobs.reset();
+            failures.reset();
+            busyNanos.reset();
+            starvedNanos.reset();
+            blockedNanos.reset();
+            AtomicInteger running = new AtomicInteger(threads);
+            List<Thread> stageThreads = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                Thread thread = new Thread(() -> work(input, output, finished, done, running), name + "-" + i);
+                thread.setDaemon(true);
+                thread.start();
+                stageThreads.add(thread);
+            }
+            return stageThreads;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void work(BlockingQueue<Object> input, BlockingQueue<Object> output, List<T> finished,
+                          CountDownLatch done, AtomicInteger running) {
+            boolean ended = false;
+            try {
+                while (true) {
+                    long takeStart = System.nanoTime();
+                    Object next = input.take();
+                    long taskStart = System.nanoTime();
+                    starvedNanos.add(taskStart - takeStart);
+                    if (next == end) {
+                        // the other threads of the stage see the end too
+                        input.put(end);
+                        ended = true;
+                        break;
+                    }
+                    T job = (T) next;
+                    boolean succeeded = runTask(job);
+                    long putStart = System.nanoTime();
+                    busyNanos.add(putStart - taskStart);
+                    if (!succeeded) {
+                        continue;
+                    }
+                    if (output == null) {
+                        synchronized (finished) {
+                            finished.add(job);
+                        }
+                    }
+                    else {
+                        output.put(job);
+                        blockedNanos.add(System.nanoTime() - putStart);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (running.decrementAndGet() == 0) {
+                    if (!ended) {
+                        drain(input);
+                    }
+                    passEnd(output, done);
+                }
+            }
+        }
+
+        /**
+         * Drops the jobs left for a stage whose threads all stopped before the end of the jobs, up to the end, so that
+         * the stages before it never block on a queue no thread takes from.
+         * @param input the queue of the stage
+         */
+        private void drain(BlockingQueue<Object> input) {
+            try {
+                for (Object next = input.take(); next != end; next = input.take()) {
+                    failures.increment();
+                    Logger.getGlobal().severe(String.format("Stage %s dropped %s", name, next));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void passEnd(BlockingQueue<Object> output, CountDownLatch done) {
+            if (output == null) {
+                done.countDown();
+                return;
+            }
+            try {
+                output.put(end);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done.countDown();
+            }
+        }
+
+        private boolean runTask(T job) {
+            try {
+                task.run(job);
+                jobs.increment();
+                return true;
+            } catch (Throwable e) {
+                failures.increment();
+                Logger.getGlobal().severe(String.format("Stage %s failed on %s: %s", name, job, e));
+                return false;
+            }
+        }
+    }
+}
@@ -1,30 +1,112 @@
 package ascii_art.img_to_char;
 
-import java.awt.*;
 import image.Image;
-import java.util.HashMap;
+import metrics.Stage;
+import metrics.StageTimer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * BrightnessImgCharMatcher class - matches between chars and brightness and converts the Original image to Ascii Art
  * according to given parameters.
  */
 public class BrightnessImgCharMatcher {
-    private static final int MAX_RGB_VAL = 255;
-    private static final int RESOLUTION = 16;
-    private static final double RED_TO_GREY_VAL = 0.2126;
-    private static final double GREEN_TO_GREY_VAL = 0.7152;
-    private static final double BLUE_TO_GRAY_VAL = 0.0722;
+    static final int RESOLUTION = 16;
+    private static final int MIN_ROWS_PER_BAND = 8;
+    private static final int MAX_CACHED_GRIDS = 8;
+    /**
+     * The pools converting images in parallel, one per parallelism, shared by all the matchers instead of every
+     * matcher starting threads of its own. Their threads are daemons and stop once idle for a while.
+     */
+    private static final Map<Integer, ForkJoinPool> conversionPools = new ConcurrentHashMap<>();
     private final Image image;
     private final String font;
-    private final HashMap<Image, Float> subImageBrightnessDict = new HashMap<>();
+    private final int parallelism;
+    private LuminanceTable luminanceTable;
+    private LuminancePyramid luminancePyramid;
+    private int lastSubImageSize = 0;
+    private LuminanceLut lut = LuminanceLut.ENCODED;
     /**
-     * Constructor for BrightnessImgCharMatcher.
+     * Counts the changes of lut, so that brightness computed outside the lock is only kept if the weighting didn't
+     * change meanwhile.
+     */
+    private int lutVersion = 0;
+    /**
+     * The average brightness of every SubImage (row after row) by SubImage size, evicting the least recently used
+     * resolution once full.
+     */
+    private final Map<Integer, float[]> tileBrightnessGrids = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+            return size() > MAX_CACHED_GRIDS;
+        }
+    };
+    /**
+     * Constructor for BrightnessImgCharMatcher, converts the image serially.
      * @param image Image object
      * @param font Font String
      */
     public BrightnessImgCharMatcher(Image image, String font) {
+        this(image, font, 1);
+    }
+
+    /**
+     * Constructor for BrightnessImgCharMatcher.
+     * @param image Image object
+     * @param font Font String
+     * @param parallelism number of threads converting bands of rows of the image at the same time, 1 converts the
+     * image serially in the calling thread. The result is the same whatever the parallelism is.
+     */
+    public BrightnessImgCharMatcher(Image image, String font, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
         this.image = image;
         this.font = font;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Chooses how the grey levels of the pixels are computed from now on: with the Vector API (when vectorSrc is
+     * compiled and the JVM runs with --add-modules jdk.incubator.vector) or one pixel at a time. Both give exactly the
+     * same chars.
+     * @param vector true for the Vector API, false for the scalar computation
+     * @return true if the requested computation is in use, false if the Vector API isn't available
+     */
+    public static boolean useVectorLuminance(boolean vector) {
+        return LuminanceTable.useVectorKernel(vector);
+    }
+
+    /**
+     * Checks how the grey levels of the pixels are computed.
+     * @return true if with the Vector API, false if one pixel at a time
+     */
+    public static boolean usesVectorLuminance() {
+        return LuminanceTable.usesVectorKernel();
+    }
+
+    /**
+     * Chooses how this matcher weights the grey levels of the pixels from now on: as their channels are stored (the
+     * default), or converted from sRGB to linear light first, which makes dark and mid tones darker and matches the
+     * share of white of the glyphs more closely. The brightness kept from earlier conversions is dropped when the
+     * weighting changes, so every matching mode uses the new one.
+     * @param linearized true to convert the channels to linear light, false to weight them as they are stored
+     */
+    public synchronized void useLinearizedLuminance(boolean linearized) {
+        LuminanceLut newLut = linearized ? LuminanceLut.LINEARIZED : LuminanceLut.ENCODED;
+        if (newLut == lut) {
+            return;
+        }
+        lut = newLut;
+        lutVersion++;
+        luminanceTable = null;
+        luminancePyramid = null;
+        tileBrightnessGrids.clear();
     }
 
     /**
@@ -34,23 +116,163 @@ public class BrightnessImgCharMatcher {
      * @return A 2D Array of chars that represents the AsciiArt Image.
      */
     public char[][] chooseChars(int numCharsInRow, Character[] charSet){
-        float [] charToBrightness = translateCharToBrightness(charSet);
+        return getAsciiArtCharArray(numCharsInRow, charSet, charBrightnessIndex(charSet, font));
+    }
+
+    /**
+     * Computes the brightness of the SubImages at a resolution ahead of time, so that the next calls to chooseChars and
+     * remapChars at that resolution only choose the chars.
+     * @param numCharsInRow number of chars in each row
+     */
+    public void analyze(int numCharsInRow){
+        getTileBrightness(subImageSize(image.getWidth(), numCharsInRow));
+    }
+
+    /**
+     * Converts the image again with another charSet, at the resolution of the last call to chooseChars. The
+     * brightness of the SubImages is kept from that call, so only the chars are chosen again, without reading any
+     * pixel.
+     * @param charSet the charSet - set of given Ascii Characters
+     * @return A 2D Array of chars that represents the AsciiArt Image.
+     */
+    public char[][] remapChars(Character[] charSet){
+        int subImageSize;
+        synchronized (this) {
+            subImageSize = lastSubImageSize;
+        }
+        if (subImageSize == 0) {
+            throw new IllegalStateException("remapChars must follow a call to chooseChars");
+        }
+        return assignChars(subImageSize, charSet, charBrightnessIndex(charSet, font));
+    }
+
+    /**
+     * Converts the image to Ascii Art with dithering: the difference between the brightness of every SubImage and of
+     * its char is spread over the SubImages not converted yet, so areas between the brightness levels of the charSet
+     * get a mix of the chars around them instead of bands of a single char. The SubImages are converted in a single
+     * pass, row after row, reading the brightness of each one as it is converted and keeping the error of the few
+     * rows the diffusion reaches only.
+     * @param numCharsInRow number of chars in each row
+     * @param charSet the charSet - set of given Ascii Characters
+     * @param diffusion the error diffusion kernel
+     * @return A 2D Array of chars that represents the AsciiArt Image.
+     */
+    public char[][] chooseDitheredChars(int numCharsInRow, Character[] charSet, ErrorDiffusion diffusion){
+        CharBrightnessIndex charBrightnessIndex = charBrightnessIndex(charSet, font);
+        int subImageSize = subImageSize(image.getWidth(), numCharsInRow);
+        int charRows = tileCount(image.getHeight(), subImageSize);
+        int charCols = tileCount(image.getWidth(), subImageSize);
+        char[][] asciiConvertedImage = new char[charRows][charCols];
+        if (charSet.length == 0){
+            return asciiConvertedImage;
+        }
+        SubImageBrightness table = getSubImageBrightness(subImageSize);
+        try (StageTimer timer = StageTimer.start(Stage.MATCH)) {
+            int colsAround = diffusion.colsAround();
+            float[][] errorRows = new float[diffusion.rowsAhead() + 1][charCols + 2 * colsAround];
+            for (int row = 0; row < charRows; row++) {
+                float[] errors = errorRows[row % errorRows.length];
+                for (int col = 0; col < charCols; col++) {
+                    float subImgAvgBrightness = table.averageBrightness(row * subImageSize, col * subImageSize,
+                            subImageSize);
+                    float brightness = Math.min(Math.max(subImgAvgBrightness + errors[col + colsAround], 0), 1);
+                    int charIndex = charBrightnessIndex.closestCharIndex(brightness);
+                    asciiConvertedImage[row][col] = charSet[charIndex];
+                    float error = brightness - charBrightnessIndex.charBrightness(charIndex);
+                    if (!Float.isNaN(error)) {
+                        diffusion.diffuse(errorRows, row, col + colsAround, error);
+                    }
+                }
+                Arrays.fill(errors, 0);
+            }
+            timer.setItems((long) charRows * charCols);
+        }
+        return asciiConvertedImage;
+    }
+
+    /**
+     * Converts the image to colored Ascii Art: every SubImage gets the char matching its brightness, and its
+     * average color. Both are accumulated in the same pass over the SubImage's pixels.
+     * @param numCharsInRow number of chars in each row
+     * @param charSet the charSet - set of given Ascii Characters
+     * @return the chars and colors that represent the AsciiArt Image.
+     */
+    public ColoredChars chooseColoredChars(int numCharsInRow, Character[] charSet){
+        CharBrightnessIndex charBrightnessIndex = charBrightnessIndex(charSet, font);
+        int subImageSize = subImageSize(image.getWidth(), numCharsInRow);
+        int charRows = tileCount(image.getHeight(), subImageSize);
+        int charCols = tileCount(image.getWidth(), subImageSize);
+        char[][] asciiConvertedImage = new char[charRows][charCols];
+        int[][] colors = new int[charRows][charCols];
+        if (charSet.length == 0){
+            return new ColoredChars(asciiConvertedImage, colors);
+        }
+        LuminanceLut pixelLut;
+        synchronized (this) {
+            pixelLut = lut;
+        }
+        try (StageTimer timer = StageTimer.start(Stage.MATCH)) {
+            convertRows(charRows, (fromRow, toRow) -> fillColoredRows(asciiConvertedImage, colors, fromRow, toRow,
+                    subImageSize, charSet, charBrightnessIndex, pixelLut));
+            timer.setItems((long) charRows * charCols);
+        }
+        return new ColoredChars(asciiConvertedImage, colors);
+    }
+
+    /**
+     * Converts the image to Ascii Art by shape instead of brightness: every SubImage is thresholded into a
+     * black&white mask and gets the char whose rendered glyph differs from it in the fewest cells (the first such
+     * char of the charSet). Edges and lines of the image are then drawn by chars of the same shape.
+     * @param numCharsInRow number of chars in each row
+     * @param charSet the charSet - set of given Ascii Characters
+     * @return A 2D Array of chars that represents the AsciiArt Image.
+     */
+    public char[][] chooseShapeChars(int numCharsInRow, Character[] charSet){
+        int subImageSize = subImageSize(image.getWidth(), numCharsInRow);
+        int charRows = tileCount(image.getHeight(), subImageSize);
+        int charCols = tileCount(image.getWidth(), subImageSize);
+        char[][] asciiConvertedImage = new char[charRows][charCols];
+        if (charSet.length == 0){
+            return asciiConvertedImage;
+        }
+        long[][] glyphMasks = new long[charSet.length][];
+        for (int i = 0; i < charSet.length; i++) {
+            glyphMasks[i] = GlyphMask.ofGlyph(CharRenderer.getImg(charSet[i], GlyphMask.SIZE, font));
+        }
+        LuminanceTable table = getLuminanceTable();
+        try (StageTimer timer = StageTimer.start(Stage.MATCH)) {
+            convertRows(charRows, (fromRow, toRow) -> fillShapeRows(asciiConvertedImage, fromRow, toRow, subImageSize,
+                    charSet, glyphMasks, table));
+            timer.setItems((long) charRows * charCols);
+        }
+        return asciiConvertedImage;
+    }
+
+    /**
+     * Builds the index matching brightness values to the chars of a charSet.
+     * @param charSet the charSet - set of given Ascii Characters
+     * @param font Font String
+     * @return index of the linear stretched brightness level of each Ascii Char belongs to the charSet.
+     */
+    static CharBrightnessIndex charBrightnessIndex(Character[] charSet, String font) {
+        float [] charToBrightness = translateCharToBrightness(charSet, font);
         float[] charBrightnessLinearStretched = linearStretch(charToBrightness);
-        return getAsciiArtCharArray(numCharsInRow, charSet, charBrightnessLinearStretched);
+        return new CharBrightnessIndex(charBrightnessLinearStretched);
     }
 
     /**
      * translates the Ascii Characters to float values which represents brightness value.
      * @param charSet the charSet - set of given Ascii Characters
+     * @param font Font String
      * @return an array of floats represents the ascii characters to brightness float values.
      */
-    private float[] translateCharToBrightness(Character[] charSet){
+    private static float[] translateCharToBrightness(Character[] charSet, String font){
          float[] brightnessArr = new float[charSet.length];
          if (charSet.length == 0){
              return brightnessArr;
          }
          for (int i = 0; i < charSet.length; i++) {
-             int whiteCounter = getWhitePixelCount(charSet[i]);
+             int whiteCounter = getWhitePixelCount(charSet[i], font);
              brightnessArr[i] = (float)whiteCounter / (RESOLUTION*RESOLUTION);
          }
          return brightnessArr;
@@ -59,9 +281,10 @@ public class BrightnessImgCharMatcher {
     /**
      * Gets the total number of white Color pixels in the given character when it is rendered.
      * @param character An Ascii Character
+     * @param font Font String
      * @return Returns the white pixel counter for specific Character
      */
-    private int getWhitePixelCount(Character character) {
+    private static int getWhitePixelCount(Character character, String font) {
         int whiteCounter = 0;
         boolean[][] boolMatrix = CharRenderer.getImg(character, RESOLUTION, font);
         for (boolean[] boolRow : boolMatrix) {
@@ -102,61 +325,351 @@ public class BrightnessImgCharMatcher {
     }
 
     /**
-     *
-     * @param subImage a SubImage object
-     * @return Average Brightness of a subimage
+     * Getter for the source of the SubImages' brightness, built on first use and kept for every later rendering of
+     * the same image. SubImage sizes that are a power of 2 (all the resolutions the Shell goes through) are read
+     * from the LuminancePyramid, any other size from the summed-area table of the image's grey levels.
+     * @param subImageSize SubImage dimensions
+     * @return the brightness source for SubImages of that size
      */
-    private float imageAverageBrightness(Image subImage){
-        if (subImageBrightnessDict.containsKey(subImage)){
-            return subImageBrightnessDict.get(subImage);
+    private SubImageBrightness getSubImageBrightness(int subImageSize) {
+        if (Integer.bitCount(subImageSize) == 1) {
+            LuminancePyramid pyramid = getLuminancePyramid();
+            if (pyramid.hasLevel(subImageSize)) {
+                return pyramid;
+            }
         }
-        float grayPixelSum = 0;
-        int pixelCounter = 0;
-        for (Color pixel : subImage.pixels()) {
-             grayPixelSum += (pixel.getRed() * RED_TO_GREY_VAL + pixel.getGreen() * GREEN_TO_GREY_VAL +
-                     pixel.getBlue() * BLUE_TO_GRAY_VAL) / MAX_RGB_VAL;
-             pixelCounter++;
+        return getLuminanceTable();
+    }
+
+    /**
+     * Getter for the LuminancePyramid of the image, built on first use. It is built without holding the matcher's
+     * lock, so if two conversions build it at once the first one to finish is kept.
+     * @return the LuminancePyramid of the image
+     */
+    private LuminancePyramid getLuminancePyramid() {
+        LuminanceLut pyramidLut;
+        int version;
+        synchronized (this) {
+            if (luminancePyramid != null) {
+                return luminancePyramid;
+            }
+            pyramidLut = lut;
+            version = lutVersion;
+        }
+        LuminancePyramid pyramid;
+        try (StageTimer timer = StageTimer.start(Stage.BRIGHTNESS)) {
+            pyramid = new LuminancePyramid(image, pyramidLut);
+            timer.setItems((long) image.getWidth() * image.getHeight());
+        }
+        synchronized (this) {
+            if (version != lutVersion) {
+                return pyramid;
+            }
+            if (luminancePyramid == null) {
+                luminancePyramid = pyramid;
+            }
+            return luminancePyramid;
+        }
+    }
+
+    /**
+     * Getter for the summed-area table of the image's grey levels, built on first use. Like the pyramid, it is built
+     * without holding the matcher's lock.
+     * @return the LuminanceTable of the image
+     */
+    private LuminanceTable getLuminanceTable() {
+        LuminanceLut tableLut;
+        int version;
+        synchronized (this) {
+            if (luminanceTable != null) {
+                return luminanceTable;
+            }
+            tableLut = lut;
+            version = lutVersion;
+        }
+        LuminanceTable table;
+        try (StageTimer timer = StageTimer.start(Stage.BRIGHTNESS)) {
+            table = new LuminanceTable(image, tableLut);
+            timer.setItems((long) image.getWidth() * image.getHeight());
+        }
+        synchronized (this) {
+            if (version != lutVersion) {
+                return table;
+            }
+            if (luminanceTable == null) {
+                luminanceTable = table;
+            }
+            return luminanceTable;
+        }
+    }
+
+    /**
+     * Getter for the average brightness of every SubImage of a size, computed on first use and kept for the next
+     * conversions at the same resolution. The grid is computed without holding the matcher's lock, so that other
+     * threads using the matcher don't wait for a whole brightness pass, and the first grid of a size to be finished
+     * is the one kept.
+     * @param subImageSize SubImage dimensions
+     * @return the brightness of the SubImages, row after row
+     */
+    private float[] getTileBrightness(int subImageSize) {
+        int version;
+        synchronized (this) {
+            float[] grid = tileBrightnessGrids.get(subImageSize);
+            if (grid != null) {
+                return grid;
+            }
+            version = lutVersion;
+        }
+        SubImageBrightness table = getSubImageBrightness(subImageSize);
+        int charRows = tileCount(image.getHeight(), subImageSize);
+        int charCols = tileCount(image.getWidth(), subImageSize);
+        float[] newGrid = new float[charRows * charCols];
+        try (StageTimer timer = StageTimer.start(Stage.GRID)) {
+            convertRows(charRows, (fromRow, toRow) -> fillBrightness(newGrid, charCols, fromRow, toRow, subImageSize,
+                    table));
+            timer.setItems((long) charRows * charCols);
+        }
+        synchronized (this) {
+            // a grid computed while the weighting changed may come from a table of either weighting, so it isn't kept
+            if (version != lutVersion) {
+                return newGrid;
+            }
+            float[] grid = tileBrightnessGrids.get(subImageSize);
+            if (grid != null) {
+                return grid;
+            }
+            tileBrightnessGrids.put(subImageSize, newGrid);
+            return newGrid;
         }
-        subImageBrightnessDict.put(subImage, grayPixelSum / pixelCounter);
-        return grayPixelSum / pixelCounter;
     }
 
     /**
      *
      * @param numCharsInRow number of chars in each row
      * @param charSet Set of Ascii Characters
-     * @param charBrightnessLinearStretched An array of linear stretched float values represents brightness level
-     * of each Ascii Char belongs to the charSet.
+     * @param charBrightnessIndex index of the linear stretched brightness level of each Ascii Char belongs to the
+     * charSet.
      * @return char 2D Array that represents the AsciiArt Image
      */
-    private char[][] getAsciiArtCharArray(int numCharsInRow, Character[] charSet, float[] charBrightnessLinearStretched)
+    private char[][] getAsciiArtCharArray(int numCharsInRow, Character[] charSet,
+                                          CharBrightnessIndex charBrightnessIndex)
     {
-        int subImageSize = image.getWidth() / numCharsInRow;
-        int charRows = image.getHeight()/subImageSize;
-        int charCols = image.getWidth()/subImageSize;
+        int subImageSize = subImageSize(image.getWidth(), numCharsInRow);
+        synchronized (this) {
+            lastSubImageSize = subImageSize;
+        }
+        return assignChars(subImageSize, charSet, charBrightnessIndex);
+    }
+
+    /**
+     * Chooses the char of every SubImage of a size from the brightness of the SubImages.
+     * @param subImageSize SubImage dimensions
+     * @param charSet Set of Ascii Characters
+     * @param charBrightnessIndex index of the brightness level of each Ascii Char belongs to the charSet
+     * @return char 2D Array that represents the AsciiArt Image
+     */
+    private char[][] assignChars(int subImageSize, Character[] charSet, CharBrightnessIndex charBrightnessIndex) {
+        int charRows = tileCount(image.getHeight(), subImageSize);
+        int charCols = tileCount(image.getWidth(), subImageSize);
         char[][] asciiConvertedImage = new char[charRows][charCols];
         if (charSet.length == 0){
             return asciiConvertedImage;
         }
-        int row = 0 , col = 0;
-        for(Image subImage : image.SubimageIterator(subImageSize)) {
-            float subImgAvgBrightness = imageAverageBrightness(subImage);
-            int bestCharIndex = 0;
-            float bestDistance = 1;
-            for (int currIdx = 0; currIdx < charBrightnessLinearStretched.length; currIdx++) {
-                float distance = charBrightnessLinearStretched[currIdx] - subImgAvgBrightness;
-                if (Math.abs(distance) < bestDistance){
-                    bestDistance = Math.abs(distance);
-                    bestCharIndex = currIdx;
+        float[] grid = getTileBrightness(subImageSize);
+        try (StageTimer timer = StageTimer.start(Stage.MATCH)) {
+            convertRows(charRows, (fromRow, toRow) -> fillRows(asciiConvertedImage, grid, fromRow, toRow, charSet,
+                    charBrightnessIndex));
+            timer.setItems((long) charRows * charCols);
+        }
+        return asciiConvertedImage;
+    }
+
+    /**
+     * Size of the SubImages converting an image to a number of chars per row, rounded up so that the image never
+     * gets more chars per row than requested (fewer if the width isn't a multiple of it).
+     * @param width width of the image, in pixels
+     * @param numCharsInRow number of chars in each row
+     * @return SubImage dimensions
+     */
+    static int subImageSize(int width, int numCharsInRow) {
+        return (width + numCharsInRow - 1) / numCharsInRow;
+    }
+
+    /**
+     * Number of SubImages along a dimension of the image, the last one being partial if the dimension isn't a
+     * multiple of the SubImage size.
+     * @param pixels the dimension, in pixels
+     * @param subImageSize SubImage dimensions
+     * @return number of SubImages
+     */
+    static int tileCount(int pixels, int subImageSize) {
+        return (pixels + subImageSize - 1) / subImageSize;
+    }
+
+    /**
+     * Converts all the rows of SubImages, serially in the calling thread or in parallel bands of rows, according to
+     * the parallelism of the matcher.
+     * @param charRows number of rows of chars
+     * @param rowConverter converts a band of rows
+     */
+    private void convertRows(int charRows, RowConverter rowConverter) {
+        if (parallelism == 1) {
+            rowConverter.convert(0, charRows);
+        }
+        else {
+            getConversionPool().invoke(new RowBandTask(rowConverter, 0, charRows));
+        }
+    }
+
+    /**
+     * Computes the brightness of a band of rows of SubImages.
+     * @param grid brightness of the SubImages to fill, row after row
+     * @param charCols number of SubImages in a row
+     * @param fromRow first row of SubImages to fill
+     * @param toRow row of SubImages after the last one to fill
+     * @param subImageSize SubImage dimensions
+     * @param table the source of the SubImages' brightness
+     */
+    private static void fillBrightness(float[] grid, int charCols, int fromRow, int toRow, int subImageSize,
+                                       SubImageBrightness table) {
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = 0; col < charCols; col++) {
+                grid[row * charCols + col] = table.averageBrightness(row * subImageSize, col * subImageSize,
+                        subImageSize);
+            }
+        }
+    }
+
+    /**
+     * Converts a band of rows of SubImages to chars, from their brightness.
+     * @param asciiConvertedImage char 2D Array to fill
+     * @param grid brightness of the SubImages, row after row
+     * @param fromRow first row of chars to fill
+     * @param toRow row of chars after the last one to fill
+     * @param charSet Set of Ascii Characters
+     * @param charBrightnessIndex index of the brightness level of each Ascii Char belongs to the charSet
+     */
+    private static void fillRows(char[][] asciiConvertedImage, float[] grid, int fromRow, int toRow,
+                                 Character[] charSet, CharBrightnessIndex charBrightnessIndex) {
+        for (int row = fromRow; row < toRow; row++) {
+            char[] chars = asciiConvertedImage[row];
+            int rowStart = row * chars.length;
+            for (int col = 0; col < chars.length; col++) {
+                chars[col] = charSet[charBrightnessIndex.closestCharIndex(grid[rowStart + col])];
+            }
+        }
+    }
+
+    /**
+     * Converts a band of rows of SubImages to chars and average colors.
+     * @param asciiConvertedImage char 2D Array to fill
+     * @param colors colors 2D Array to fill, with RGB colors packed as ints
+     * @param fromRow first row of chars to fill
+     * @param toRow row of chars after the last one to fill
+     * @param subImageSize SubImage dimensions
+     * @param charSet Set of Ascii Characters
+     * @param charBrightnessIndex index of the brightness level of each Ascii Char belongs to the charSet
+     * @param lut the lookup tables converting the pixels to grey levels
+     */
+    private void fillColoredRows(char[][] asciiConvertedImage, int[][] colors, int fromRow, int toRow,
+                                 int subImageSize, Character[] charSet, CharBrightnessIndex charBrightnessIndex,
+                                 LuminanceLut lut) {
+        for (int row = fromRow; row < toRow; row++) {
+            int rowEnd = Math.min((row + 1) * subImageSize, image.getHeight());
+            for (int col = 0; col < asciiConvertedImage[row].length; col++) {
+                int colEnd = Math.min((col + 1) * subImageSize, image.getWidth());
+                long pixelCount = (long) (rowEnd - row * subImageSize) * (colEnd - col * subImageSize);
+                long redSum = 0, greenSum = 0, blueSum = 0, greySum = 0;
+                for (int x = row * subImageSize; x < rowEnd; x++) {
+                    for (int y = col * subImageSize; y < colEnd; y++) {
+                        int rgb = image.getRGB(x, y);
+                        greySum += lut.greyLevel(rgb);
+                        redSum += (rgb >> 16) & 0xFF;
+                        greenSum += (rgb >> 8) & 0xFF;
+                        blueSum += rgb & 0xFF;
+                    }
                 }
+                float subImgAvgBrightness = LuminanceLut.brightness(greySum, pixelCount);
+                asciiConvertedImage[row][col] = charSet[charBrightnessIndex.closestCharIndex(subImgAvgBrightness)];
+                colors[row][col] = (int) ((redSum + pixelCount / 2) / pixelCount) << 16 |
+                        (int) ((greenSum + pixelCount / 2) / pixelCount) << 8 |
+                        (int) ((blueSum + pixelCount / 2) / pixelCount);
             }
-            asciiConvertedImage[row][col] = charSet[bestCharIndex];
-            col++;
-            if (col == numCharsInRow){
-                col = 0;
-                row++;
+        }
+    }
+
+    /**
+     * Converts a band of rows of SubImages to the chars of the closest shape.
+     * @param asciiConvertedImage char 2D Array to fill
+     * @param fromRow first row of chars to fill
+     * @param toRow row of chars after the last one to fill
+     * @param subImageSize SubImage dimensions
+     * @param charSet Set of Ascii Characters
+     * @param glyphMasks mask of each Ascii Char of the charSet
+     * @param table the summed-area table of the image
+     */
+    private void fillShapeRows(char[][] asciiConvertedImage, int fromRow, int toRow, int subImageSize,
+                               Character[] charSet, long[][] glyphMasks, LuminanceTable table) {
+        long[] subImageMask = new long[GlyphMask.WORDS];
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = 0; col < asciiConvertedImage[row].length; col++) {
+                GlyphMask.ofSubImage(table, image.getHeight(), image.getWidth(), row * subImageSize,
+                        col * subImageSize, subImageSize, subImageMask);
+                int closestChar = 0;
+                int minDistance = Integer.MAX_VALUE;
+                for (int i = 0; i < glyphMasks.length; i++) {
+                    int distance = GlyphMask.distance(subImageMask, glyphMasks[i]);
+                    if (distance < minDistance) {
+                        minDistance = distance;
+                        closestChar = i;
+                    }
+                }
+                asciiConvertedImage[row][col] = charSet[closestChar];
             }
         }
-        return asciiConvertedImage;
+    }
+
+    /**
+     * Getter for the pool converting the image in parallel, shared by the matchers of the same parallelism and
+     * created on first use.
+     * @return the ForkJoinPool of the parallelism of this matcher
+     */
+    private ForkJoinPool getConversionPool() {
+        return conversionPools.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+
+    /**
+     * Converts a band of rows of SubImages, writing to those rows of the result only.
+     */
+    private interface RowConverter {
+        void convert(int fromRow, int toRow);
+    }
+
+    /**
+     * RowBandTask class - converts a band of rows of SubImages, splitting it in two halves converted in parallel as
+     * long as the band is large enough. Every task writes its own rows only, so the result doesn't depend on the
+     * order the tasks run in.
+     */
+    private static class RowBandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient RowConverter rowConverter;
+        private final int fromRow;
+        private final int toRow;
+
+        RowBandTask(RowConverter rowConverter, int fromRow, int toRow) {
+            this.rowConverter = rowConverter;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= MIN_ROWS_PER_BAND) {
+                rowConverter.convert(fromRow, toRow);
+                return;
+            }
+            int midRow = (fromRow + toRow) >>> 1;
+            invokeAll(new RowBandTask(rowConverter, fromRow, midRow), new RowBandTask(rowConverter, midRow, toRow));
+        }
     }
 }
@@ -0,0 +1,112 @@
+package ascii_art.img_to_char;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * CharBrightnessIndex class - matches a brightness to the char with the closest brightness by a binary search over
+ * the sorted char brightness values, instead of scanning the whole charSet for every SubImage.
+ * The choice is exactly the same as scanning the charSet in order and keeping the first char whose distance is
+ * strictly smaller than the best one so far (starting from a distance of 1, and from the first char).
+ */
+class CharBrightnessIndex {
+    private static final float MAX_DISTANCE = 1;
+    private final float[] charBrightness;
+    private final float[] sortedBrightness;
+    private final int[] sortedCharIndices;
+
+    /**
+     * Constructor for CharBrightnessIndex.
+     * @param charBrightness brightness of each char of the charSet, in the charSet order.
+     */
+    CharBrightnessIndex(float[] charBrightness) {
+        this.charBrightness = charBrightness;
+        Integer[] order = new Integer[charBrightness.length];
+        int count = 0;
+        for (int i = 0; i < charBrightness.length; i++) {
+            // a NaN brightness (all chars equally bright) is never closer than anything, so it is never chosen
+            if (!Float.isNaN(charBrightness[i])) {
+                order[count++] = i;
+            }
+        }
+        order = Arrays.copyOf(order, count);
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> charBrightness[i]).thenComparingInt(i -> i));
+        float[] brightness = new float[count];
+        int[] indices = new int[count];
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            // chars with the same brightness: only the first one in the charSet can ever be chosen
+            if (unique == 0 || brightness[unique - 1] != charBrightness[order[i]]) {
+                brightness[unique] = charBrightness[order[i]];
+                indices[unique] = order[i];
+                unique++;
+            }
+        }
+        this.sortedBrightness = Arrays.copyOf(brightness, unique);
+        this.sortedCharIndices = Arrays.copyOf(indices, unique);
+    }
+
+    /**
+     * Finds the char whose brightness is the closest to the given brightness.
+     * @param brightness a brightness value
+     * @return index in the charSet of the closest char
+     */
+    int closestCharIndex(float brightness) {
+        int upper = lowerBound(brightness);
+        int lower = upper - 1;
+        float bestDistance = Math.min(distance(lower, brightness), distance(upper, brightness));
+        if (!(bestDistance < MAX_DISTANCE)) {
+            return 0;
+        }
+        // rounded distances only grow moving away from the brightness, so equally close chars are adjacent
+        int bestCharIndex = Integer.MAX_VALUE;
+        for (int i = lower; i >= 0 && distance(i, brightness) == bestDistance; i--) {
+            bestCharIndex = Math.min(bestCharIndex, sortedCharIndices[i]);
+        }
+        for (int i = upper; i < sortedBrightness.length && distance(i, brightness) == bestDistance; i++) {
+            bestCharIndex = Math.min(bestCharIndex, sortedCharIndices[i]);
+        }
+        return bestCharIndex;
+    }
+
+    /**
+     * Getter for the brightness of a char.
+     * @param charIndex index in the charSet of the char
+     * @return the brightness of the char, NaN if all the chars are equally bright
+     */
+    float charBrightness(int charIndex) {
+        return charBrightness[charIndex];
+    }
+
+    /**
+     * Distance between the brightness of a char in the sorted order and a brightness value.
+     * @param sortedIdx index in the sorted order, may be out of range.
+     * @param brightness a brightness value
+     * @return the distance, or infinity if the index is out of range.
+     */
+    private float distance(int sortedIdx, float brightness) {
+        if (sortedIdx < 0 || sortedIdx >= sortedBrightness.length) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return Math.abs(sortedBrightness[sortedIdx] - brightness);
+    }
+
+    /**
+     * Binary search for the first char in the sorted order that isn't darker than the given brightness.
+     * @param brightness a brightness value
+     * @return its index in the sorted order, or the number of chars if there is none.
+     */
+    private int lowerBound(float brightness) {
+        int low = 0, high = sortedBrightness.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedBrightness[mid] < brightness) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
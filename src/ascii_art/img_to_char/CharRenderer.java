@@ -1,7 +1,14 @@
 package ascii_art.img_to_char;
 
+import metrics.Stage;
+import metrics.StageTimer;
+
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Inspired by, and partly copied from
@@ -14,17 +21,42 @@ import java.awt.image.BufferedImage;
 public class CharRenderer {
     private static final double X_OFFSET_FACTOR = 0.2;
     private static final double Y_OFFSET_FACTOR = 0.75;
+    private static final int MAX_CACHED_GLYPHS = 4096;
+
+    /**
+     * Rendered glyphs shared by every caller, evicting the least recently used glyph once full.
+     */
+    private static final Map<GlyphKey, boolean[][]> glyphCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<GlyphKey, boolean[][]> eldest) {
+                    return size() > MAX_CACHED_GLYPHS;
+                }
+            });
 
     /**
      * Renders a given character, according to how it looks in the font specified in the
      * constructor, to a square black&white image (2D array of booleans),
      * whose dimension in pixels is specified.
+     * The returned image is cached and shared between callers, so it must not be modified.
      */
     public static boolean[][] getImg(char c, int pixels, String fontName) {
-        int key = (pixels << 8) | c;
-        return render(c, pixels, fontName);
+        GlyphKey key = new GlyphKey(fontName, pixels, c);
+        boolean[][] img = glyphCache.get(key);
+        if (img == null) {
+            try (StageTimer timer = StageTimer.start(Stage.GLYPHS)) {
+                img = render(c, pixels, fontName);
+                timer.setItems(1);
+            }
+            glyphCache.put(key, img);
+        }
+        return img;
     }
-    private static boolean[][] render(char c, int pixels, String fontName) {
+
+    /**
+     * Renders a character the same way as getImg, without the cache. Package-private for the benchmarks.
+     */
+    static boolean[][] render(char c, int pixels, String fontName) {
         String charStr = Character.toString(c);
         Font font = new Font(fontName, Font.PLAIN, pixels);
         BufferedImage img = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
@@ -42,6 +74,35 @@ public class CharRenderer {
         return matrix;
     }
 
+    /**
+     * Key of a rendered glyph in the cache: the font, the size in pixels and the character.
+     */
+    private static final class GlyphKey {
+        private final String fontName;
+        private final int pixels;
+        private final char c;
+
+        GlyphKey(String fontName, int pixels, char c) {
+            this.fontName = fontName;
+            this.pixels = pixels;
+            this.c = c;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GlyphKey)) {
+                return false;
+            }
+            GlyphKey other = (GlyphKey) o;
+            return pixels == other.pixels && c == other.c && fontName.equals(other.fontName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fontName, pixels, c);
+        }
+    }
+
     //for debugging
     public static void printBoolArr(boolean[][] arr) {
         for (boolean[] booleans : arr) {
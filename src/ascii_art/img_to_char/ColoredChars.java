@@ -0,0 +1,36 @@
+package ascii_art.img_to_char;
+
+/**
+ * ColoredChars class - colored Ascii Art: a 2D Array of chars and a 2D Array of the same dimensions holding the color
+ * of each char, as an RGB int (0xRRGGBB).
+ */
+public class ColoredChars {
+    private final char[][] chars;
+    private final int[][] colors;
+
+    /**
+     * Constructor for ColoredChars.
+     * @param chars the chars
+     * @param colors the color of each char
+     */
+    public ColoredChars(char[][] chars, int[][] colors) {
+        this.chars = chars;
+        this.colors = colors;
+    }
+
+    /**
+     * Getter for the chars
+     * @return 2D Array of chars
+     */
+    public char[][] getChars() {
+        return chars;
+    }
+
+    /**
+     * Getter for the colors
+     * @return 2D Array of RGB colors, one per char
+     */
+    public int[][] getColors() {
+        return colors;
+    }
+}
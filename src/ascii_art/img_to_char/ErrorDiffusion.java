@@ -0,0 +1,66 @@
+package ascii_art.img_to_char;
+
+/**
+ * The error diffusion kernels for dithering the Ascii Art: the difference between the brightness of a SubImage and
+ * the brightness of its char is spread over the next SubImages of its row and over the SubImages of the rows below,
+ * each getting a fraction of it.
+ */
+public enum ErrorDiffusion {
+    /**
+     * Floyd-Steinberg: 7/16 to the right, 3/16 below left, 5/16 below and 1/16 below right.
+     */
+    FLOYD_STEINBERG(new int[]{0, 1, 1, 1}, new int[]{1, -1, 0, 1}, new float[]{7f / 16, 3f / 16, 5f / 16, 1f / 16}),
+    /**
+     * Atkinson: 1/8 to each of the 2 SubImages to the right, the 3 below and the one 2 rows below. Only 3/4 of the
+     * error is spread, which keeps more contrast.
+     */
+    ATKINSON(new int[]{0, 0, 1, 1, 1, 2}, new int[]{1, 2, -1, 0, 1, 0},
+            new float[]{1f / 8, 1f / 8, 1f / 8, 1f / 8, 1f / 8, 1f / 8});
+
+    private final int[] rowOffsets;
+    private final int[] colOffsets;
+    private final float[] weights;
+
+    ErrorDiffusion(int[] rowOffsets, int[] colOffsets, float[] weights) {
+        this.rowOffsets = rowOffsets;
+        this.colOffsets = colOffsets;
+        this.weights = weights;
+    }
+
+    /**
+     * Getter for the number of rows below the current one that get a part of the error.
+     * @return the largest row offset of the kernel
+     */
+    int rowsAhead() {
+        int rowsAhead = 0;
+        for (int rowOffset : rowOffsets) {
+            rowsAhead = Math.max(rowsAhead, rowOffset);
+        }
+        return rowsAhead;
+    }
+
+    /**
+     * Getter for the number of cols to the left or right of the current one that get a part of the error.
+     * @return the largest col offset of the kernel, in absolute value
+     */
+    int colsAround() {
+        int colsAround = 0;
+        for (int colOffset : colOffsets) {
+            colsAround = Math.max(colsAround, Math.abs(colOffset));
+        }
+        return colsAround;
+    }
+
+    /**
+     * Spreads the error of a SubImage.
+     * @param errorRows the error rows of the current row and of the rows below it, as a ring indexed by row
+     * @param row index of the row of the SubImage
+     * @param col index of the col of the SubImage in the error rows
+     * @param error the difference between the brightness of the SubImage and of its char
+     */
+    void diffuse(float[][] errorRows, int row, int col, float error) {
+        for (int i = 0; i < weights.length; i++) {
+            errorRows[(row + rowOffsets[i]) % errorRows.length][col + colOffsets[i]] += error * weights[i];
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ascii_art.img_to_char;
+
+import image.Image;
+
+/**
+ * FrameSequenceMatcher class - converts the consecutive frames of an animation to Ascii Art. Between two frames, only
+ * the SubImages whose pixels changed get their brightness and char computed again, the others keep the char they
+ * had in the previous frame.
+ */
+public class FrameSequenceMatcher {
+    private final int numCharsInRow;
+    private final Character[] charSet;
+    private final CharBrightnessIndex charBrightnessIndex;
+    private Image previousFrame;
+    private char[][] previousChars;
+    private int changedSubImages;
+
+    /**
+     * Constructor for FrameSequenceMatcher.
+     * @param font Font String
+     * @param numCharsInRow number of chars in each row
+     * @param charSet the charSet - set of given Ascii Characters
+     */
+    public FrameSequenceMatcher(String font, int numCharsInRow, Character[] charSet) {
+        this.numCharsInRow = numCharsInRow;
+        this.charSet = charSet;
+        this.charBrightnessIndex = BrightnessImgCharMatcher.charBrightnessIndex(charSet, font);
+    }
+
+    /**
+     * Converts the next frame of the animation. All the frames must have the same dimensions.
+     * @param frame the next frame
+     * @return A 2D Array of chars that represents the AsciiArt of the frame.
+     */
+    public char[][] chooseChars(Image frame) {
+        if (previousFrame != null && (frame.getWidth() != previousFrame.getWidth() ||
+                frame.getHeight() != previousFrame.getHeight())) {
+            throw new IllegalArgumentException("All the frames must have the same dimensions");
+        }
+        int subImageSize = BrightnessImgCharMatcher.subImageSize(frame.getWidth(), numCharsInRow);
+        int charRows = BrightnessImgCharMatcher.tileCount(frame.getHeight(), subImageSize);
+        int charCols = BrightnessImgCharMatcher.tileCount(frame.getWidth(), subImageSize);
+        char[][] asciiConvertedImage = new char[charRows][charCols];
+        changedSubImages = 0;
+        if (charSet.length == 0) {
+            return asciiConvertedImage;
+        }
+        for (int row = 0; row < charRows; row++) {
+            for (int col = 0; col < charCols; col++) {
+                int rowIdx = row * subImageSize, colIdx = col * subImageSize;
+                if (previousFrame != null && !subImageChanged(frame, rowIdx, colIdx, subImageSize)) {
+                    asciiConvertedImage[row][col] = previousChars[row][col];
+                    continue;
+                }
+                float subImgAvgBrightness = LuminanceTable.averageBrightness(frame, rowIdx, colIdx, subImageSize,
+                        LuminanceLut.ENCODED);
+                asciiConvertedImage[row][col] = charSet[charBrightnessIndex.closestCharIndex(subImgAvgBrightness)];
+                changedSubImages++;
+            }
+        }
+        previousFrame = frame;
+        previousChars = asciiConvertedImage;
+        return asciiConvertedImage;
+    }
+
+    /**
+     * Getter for the number of SubImages converted again by the last call to chooseChars.
+     * @return number of SubImages that changed since the previous frame (all of them for the first frame)
+     */
+    public int getChangedSubImages() {
+        return changedSubImages;
+    }
+
+    /**
+     * Checks if a SubImage of a frame differs from the same SubImage in the previous frame.
+     * @param frame the current frame
+     * @param rowIdx Index of Row of the SubImage
+     * @param colIdx Index of Col of the SubImage
+     * @param subImageSize SubImage dimensions
+     * @return True if at least one pixel changed, false otherwise.
+     */
+    private boolean subImageChanged(Image frame, int rowIdx, int colIdx, int subImageSize) {
+        int rowEnd = Math.min(rowIdx + subImageSize, frame.getHeight());
+        int colEnd = Math.min(colIdx + subImageSize, frame.getWidth());
+        for (int x = rowIdx; x < rowEnd; x++) {
+            for (int y = colIdx; y < colEnd; y++) {
+                if (frame.getRGB(x, y) != previousFrame.getRGB(x, y)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
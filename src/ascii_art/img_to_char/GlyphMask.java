@@ -0,0 +1,103 @@
+package ascii_art.img_to_char;
+
+import java.util.Arrays;
+
+/**
+ * GlyphMask class - square black&white masks of SIZE x SIZE cells, packed row after row into longs, 64 cells per
+ * long, with the bit of a cell set if it is bright. The masks of a glyph and of a SubImage are compared by the number
+ * of cells that differ between them (their Hamming distance), which costs a popcount per long.
+ */
+class GlyphMask {
+    static final int SIZE = 16;
+    static final int WORDS = SIZE * SIZE / Long.SIZE;
+
+    private GlyphMask() {
+    }
+
+    /**
+     * Packs a rendered glyph into a mask.
+     * @param glyph SIZE x SIZE glyph, true where the glyph is white
+     * @return the mask of the glyph
+     */
+    static long[] ofGlyph(boolean[][] glyph) {
+        long[] mask = new long[WORDS];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                if (glyph[i][j]) {
+                    setBit(mask, i * SIZE + j);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Thresholds a SubImage into a mask: the SubImage is split into SIZE x SIZE cells (cells of a SubImage smaller than
+     * SIZE pixels read a single pixel each), and a cell is bright if its average brightness is at least 0.5. Cells
+     * outside the image, in a partial SubImage on the bottom or right edge, are bright like the padding of an image.
+     * @param table the summed-area table of the image
+     * @param imageHeight height of the image
+     * @param imageWidth width of the image
+     * @param row index of the first row of the SubImage
+     * @param col index of the first col of the SubImage
+     * @param subImageSize SubImage dimensions
+     * @param mask SubImage mask to fill, of WORDS longs
+     */
+    static void ofSubImage(LuminanceTable table, int imageHeight, int imageWidth, int row, int col, int subImageSize,
+                           long[] mask) {
+        Arrays.fill(mask, 0);
+        for (int i = 0; i < SIZE; i++) {
+            int cellRow = row + cellStart(i, subImageSize);
+            if (cellRow >= imageHeight) {
+                fillBright(mask, i * SIZE, (i + 1) * SIZE);
+                continue;
+            }
+            int cellRows = Math.min(row + cellEnd(i, subImageSize), imageHeight) - cellRow;
+            for (int j = 0; j < SIZE; j++) {
+                int cellCol = col + cellStart(j, subImageSize);
+                if (cellCol >= imageWidth) {
+                    fillBright(mask, i * SIZE + j, (i + 1) * SIZE);
+                    break;
+                }
+                int cellCols = Math.min(col + cellEnd(j, subImageSize), imageWidth) - cellCol;
+                // bright if the average grey level is at least half of white's
+                if (2 * table.greySum(cellRow, cellCol, cellRows, cellCols) >=
+                        (long) cellRows * cellCols * LuminanceLut.ONE) {
+                    setBit(mask, i * SIZE + j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of cells that differ between two masks.
+     * @param first a mask
+     * @param second another mask
+     * @return the Hamming distance between the masks
+     */
+    static int distance(long[] first, long[] second) {
+        int distance = 0;
+        for (int word = 0; word < WORDS; word++) {
+            distance += Long.bitCount(first[word] ^ second[word]);
+        }
+        return distance;
+    }
+
+    private static int cellStart(int cell, int subImageSize) {
+        return cell * subImageSize / SIZE;
+    }
+
+    private static int cellEnd(int cell, int subImageSize) {
+        return Math.max((cell + 1) * subImageSize / SIZE, cellStart(cell, subImageSize) + 1);
+    }
+
+    private static void setBit(long[] mask, int bit) {
+        mask[bit >>> 6] |= 1L << (bit & (Long.SIZE - 1));
+    }
+
+    private static void fillBright(long[] mask, int fromBit, int toBit) {
+        for (int bit = fromBit; bit < toBit; bit++) {
+            setBit(mask, bit);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ascii_art.img_to_char;
+
+/**
+ * A way to compute the grey levels of a row of pixels in bulk. The callers sum the grey levels themselves, one at a
+ * time, whatever the kernel is (see VectorLuminanceKernel).
+ */
+interface LuminanceKernel {
+    /**
+     * Converts pixels to their fixed-point grey levels, exactly like LuminanceLut.greyLevel does pixel by pixel.
+     * @param pixels pixels packed as ARGB ints
+     * @param greyLevels array to fill with the grey level of each pixel, between 0 and LuminanceLut.ONE
+     * @param length number of pixels to convert, from the start of the arrays
+     * @param lut the lookup tables of the channels
+     */
+    void greyLevels(int[] pixels, int[] greyLevels, int length, LuminanceLut lut);
+}
@@ -0,0 +1,93 @@
+package ascii_art.img_to_char;
+
+/**
+ * LuminanceLut class - converts pixels to fixed-point grey levels with a lookup table per color channel, holding the
+ * weighted contribution of the channel for each of its 256 values. A grey level is the sum of three lookups, an int
+ * between 0 (black) and ONE (white), so the grey levels of any number of pixels add up exactly in a long, in any
+ * order and on any JVM.
+ */
+final class LuminanceLut {
+    static final int MAX_RGB_VAL = 255;
+    private static final int WEIGHT_BITS = 23;
+    /**
+     * The grey level of white.
+     */
+    static final int ONE = MAX_RGB_VAL << WEIGHT_BITS;
+    private static final double RED_TO_GREY_VAL = 0.2126;
+    private static final double BLUE_TO_GRAY_VAL = 0.0722;
+    static final int RED_WEIGHT = (int) Math.round(RED_TO_GREY_VAL * (1 << WEIGHT_BITS));
+    static final int BLUE_WEIGHT = (int) Math.round(BLUE_TO_GRAY_VAL * (1 << WEIGHT_BITS));
+    // the weights add up to exactly 1, so that white is exactly ONE
+    static final int GREEN_WEIGHT = (1 << WEIGHT_BITS) - RED_WEIGHT - BLUE_WEIGHT;
+    private static final double SRGB_LINEAR_THRESHOLD = 0.04045;
+    private static final double SRGB_LINEAR_SLOPE = 12.92;
+    private static final double SRGB_OFFSET = 0.055;
+    private static final double SRGB_GAMMA = 2.4;
+
+    /**
+     * Weights the channels as they are stored, gamma encoded: the lookups equal value * weight.
+     */
+    static final LuminanceLut ENCODED = new LuminanceLut(false);
+    /**
+     * Converts the channels from sRGB to linear light before weighting them.
+     */
+    static final LuminanceLut LINEARIZED = new LuminanceLut(true);
+
+    private final boolean linearized;
+    private final int[] red = new int[MAX_RGB_VAL + 1];
+    private final int[] green = new int[MAX_RGB_VAL + 1];
+    private final int[] blue = new int[MAX_RGB_VAL + 1];
+
+    private LuminanceLut(boolean linearized) {
+        this.linearized = linearized;
+        for (int value = 0; value <= MAX_RGB_VAL; value++) {
+            red[value] = weigh(value, RED_WEIGHT, linearized);
+            green[value] = weigh(value, GREEN_WEIGHT, linearized);
+            blue[value] = weigh(value, BLUE_WEIGHT, linearized);
+        }
+    }
+
+    /**
+     * Checks if the channels are converted to linear light.
+     * @return True for LINEARIZED, false for ENCODED.
+     */
+    boolean isLinearized() {
+        return linearized;
+    }
+
+    /**
+     * Converts a pixel to its fixed-point grey level.
+     * @param rgb a pixel packed as an ARGB int
+     * @return the grey level of the pixel, between 0 and ONE
+     */
+    int greyLevel(int rgb) {
+        return red[(rgb >> 16) & 0xFF] + green[(rgb >> 8) & 0xFF] + blue[rgb & 0xFF];
+    }
+
+    /**
+     * Converts a sum of fixed-point grey levels to the average brightness of the pixels.
+     * @param greySum the sum of the grey levels
+     * @param pixels the number of pixels summed
+     * @return the average brightness, between 0 and 1
+     */
+    static float brightness(long greySum, long pixels) {
+        return (float) ((double) greySum / ((double) pixels * ONE));
+    }
+
+    /**
+     * The weighted contribution of a channel value.
+     * @param value channel value, between 0 and 255
+     * @param weight fixed-point weight of the channel
+     * @param linearized true to convert the value from sRGB to linear light first
+     * @return the contribution, value * weight if not linearized
+     */
+    private static int weigh(int value, int weight, boolean linearized) {
+        if (!linearized) {
+            return value * weight;
+        }
+        double encoded = (double) value / MAX_RGB_VAL;
+        double linear = encoded <= SRGB_LINEAR_THRESHOLD ? encoded / SRGB_LINEAR_SLOPE :
+                Math.pow((encoded + SRGB_OFFSET) / (1 + SRGB_OFFSET), SRGB_GAMMA);
+        return (int) Math.round(linear * MAX_RGB_VAL * weight);
+    }
+}
@@ -0,0 +1,107 @@
+package ascii_art.img_to_char;
+
+import image.Image;
+
+/**
+ * LuminancePyramid class - the sums of the grey levels of the SubImages of an image, for every SubImage size that is
+ * a power of 2. The finest level (2x2 SubImages) is summed from the pixels, and every other level from the level
+ * below it by adding 2x2 SubImages together, so the whole pyramid costs a single pass over the pixels.
+ * Changing the resolution by a factor of 2 then only means reading another level. The sums are exact, in longs, of
+ * the fixed-point grey levels of a LuminanceLut.
+ */
+class LuminancePyramid implements SubImageBrightness {
+    private static final int FINEST_SUBIMAGE_SIZE = 2;
+    private final long[][] levelSums;
+    private final int[] levelWidths;
+
+    /**
+     * Constructor for LuminancePyramid, builds every level the image's dimensions can be divided into.
+     * @param image Image object
+     * @param lut the lookup tables converting the pixels to grey levels
+     */
+    LuminancePyramid(Image image, LuminanceLut lut) {
+        int levels = 0;
+        while (image.getWidth() % (FINEST_SUBIMAGE_SIZE << levels) == 0 &&
+                image.getHeight() % (FINEST_SUBIMAGE_SIZE << levels) == 0) {
+            levels++;
+        }
+        levelSums = new long[levels][];
+        levelWidths = new int[levels];
+        if (levels == 0) {
+            return;
+        }
+        int width = image.getWidth() / FINEST_SUBIMAGE_SIZE, height = image.getHeight() / FINEST_SUBIMAGE_SIZE;
+        long[] finest = new long[width * height];
+        LuminanceKernel kernel = LuminanceTable.kernel();
+        int[] pixels = new int[image.getWidth()];
+        int[] upperGreyLevels = new int[image.getWidth()];
+        int[] lowerGreyLevels = new int[image.getWidth()];
+        for (int x = 0; x < height; x++) {
+            int row = x * FINEST_SUBIMAGE_SIZE;
+            image.getRGBRow(row, pixels);
+            kernel.greyLevels(pixels, upperGreyLevels, pixels.length, lut);
+            image.getRGBRow(row + 1, pixels);
+            kernel.greyLevels(pixels, lowerGreyLevels, pixels.length, lut);
+            for (int y = 0; y < width; y++) {
+                int col = y * FINEST_SUBIMAGE_SIZE;
+                finest[x * width + y] = (long) upperGreyLevels[col] + upperGreyLevels[col + 1] +
+                        lowerGreyLevels[col] + lowerGreyLevels[col + 1];
+            }
+        }
+        levelSums[0] = finest;
+        levelWidths[0] = width;
+        for (int level = 1; level < levels; level++) {
+            long[] below = levelSums[level - 1];
+            int belowWidth = width;
+            width /= 2;
+            height /= 2;
+            long[] sums = new long[width * height];
+            for (int x = 0; x < height; x++) {
+                for (int y = 0; y < width; y++) {
+                    int belowIdx = 2 * x * belowWidth + 2 * y;
+                    sums[x * width + y] = below[belowIdx] + below[belowIdx + 1] +
+                            below[belowIdx + belowWidth] + below[belowIdx + belowWidth + 1];
+                }
+            }
+            levelSums[level] = sums;
+            levelWidths[level] = width;
+        }
+    }
+
+    /**
+     * Checks if the pyramid has a level for a SubImage size.
+     * @param subImageSize SubImage dimensions
+     * @return True if the SubImages of that size were summed, false otherwise.
+     */
+    boolean hasLevel(int subImageSize) {
+        int level = level(subImageSize);
+        return level >= 0 && level < levelSums.length;
+    }
+
+    /**
+     * Average brightness of a SubImage, read from the level of its size. The SubImage must be aligned on the grid of
+     * SubImages of its size.
+     * @param row index of the first row of the SubImage
+     * @param col index of the first col of the SubImage
+     * @param subImageSize SubImage dimensions
+     * @return Average Brightness of the SubImage
+     */
+    @Override
+    public float averageBrightness(int row, int col, int subImageSize) {
+        int level = level(subImageSize);
+        long sum = levelSums[level][(row / subImageSize) * levelWidths[level] + col / subImageSize];
+        return LuminanceLut.brightness(sum, (long) subImageSize * subImageSize);
+    }
+
+    /**
+     * Index of the level of a SubImage size.
+     * @param subImageSize SubImage dimensions
+     * @return the level, or -1 if the size isn't a power of 2 of at least the finest size
+     */
+    private static int level(int subImageSize) {
+        if (subImageSize < FINEST_SUBIMAGE_SIZE || Integer.bitCount(subImageSize) != 1) {
+            return -1;
+        }
+        return Integer.numberOfTrailingZeros(subImageSize / FINEST_SUBIMAGE_SIZE);
+    }
+}
@@ -0,0 +1,149 @@
+package ascii_art.img_to_char;
+
+import image.Image;
+
+import java.util.logging.Logger;
+
+/**
+ * LuminanceTable class - a summed-area table (integral image) of the grey level of every pixel of an Image. It is
+ * built with a single pass over the pixels, after which the average brightness of any rectangle of the Image costs
+ * four lookups, whatever the resolution of the AsciiArt is.
+ * The grey levels are fixed-point ints of a LuminanceLut, summed exactly in longs. They are computed a row
+ * at a time by the LuminanceKernel in use: the Vector API one if it was compiled from vectorSrc and the
+ * jdk.incubator.vector module is there, the scalar one otherwise.
+ */
+class LuminanceTable implements SubImageBrightness {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL_CLASS = "ascii_art.img_to_char.VectorLuminanceKernel";
+    private static final LuminanceKernel SCALAR_KERNEL = new ScalarLuminanceKernel();
+    private static final LuminanceKernel VECTOR_KERNEL = loadVectorKernel();
+    private static volatile LuminanceKernel kernel = VECTOR_KERNEL != null ? VECTOR_KERNEL : SCALAR_KERNEL;
+    private final int tableWidth;
+    private final int imageHeight;
+    private final long[] sumTable;
+
+    /**
+     * Constructor for LuminanceTable, sums the grey levels of the whole image.
+     * @param image Image object
+     * @param lut the lookup tables converting the pixels to grey levels
+     */
+    LuminanceTable(Image image, LuminanceLut lut) {
+        int height = image.getHeight();
+        int width = image.getWidth();
+        this.tableWidth = width + 1;
+        this.imageHeight = height;
+        this.sumTable = new long[(height + 1) * tableWidth];
+        LuminanceKernel rowKernel = kernel;
+        int[] pixels = new int[width];
+        int[] greyLevels = new int[width];
+        for (int x = 0; x < height; x++) {
+            image.getRGBRow(x, pixels);
+            rowKernel.greyLevels(pixels, greyLevels, width, lut);
+            long rowSum = 0;
+            int rowStart = (x + 1) * tableWidth;
+            for (int y = 0; y < width; y++) {
+                rowSum += greyLevels[y];
+                sumTable[rowStart + y + 1] = sumTable[rowStart - tableWidth + y + 1] + rowSum;
+            }
+        }
+    }
+
+    /**
+     * Chooses the kernel computing the grey levels of the images converted from now on.
+     * @param vector true for the Vector API kernel, false for the scalar one
+     * @return true if the requested kernel is in use, false if the Vector API isn't available
+     */
+    static boolean useVectorKernel(boolean vector) {
+        if (vector && VECTOR_KERNEL == null) {
+            return false;
+        }
+        kernel = vector ? VECTOR_KERNEL : SCALAR_KERNEL;
+        return true;
+    }
+
+    /**
+     * Checks which kernel computes the grey levels.
+     * @return true if the Vector API kernel is in use, false if the scalar one is
+     */
+    static boolean usesVectorKernel() {
+        return kernel != SCALAR_KERNEL;
+    }
+
+    /**
+     * Getter for the kernel computing the grey levels.
+     * @return the LuminanceKernel in use
+     */
+    static LuminanceKernel kernel() {
+        return kernel;
+    }
+
+    /**
+     * Loads the Vector API kernel by reflection, so that this class doesn't depend on the incubator module when it
+     * isn't there. The kernel lives in the vectorSrc source root, which is only compiled with the module.
+     * @return the vector kernel, or null if it wasn't compiled or the jdk.incubator.vector module isn't loaded
+     */
+    private static LuminanceKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (LuminanceKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            Logger.getGlobal().warning("Failed to load the vector luminance kernel, using the scalar one");
+            return null;
+        }
+    }
+
+    /**
+     * Average brightness of a square SubImage computed straight from its pixels, for images that are converted once
+     * and don't need a table. A SubImage crossing the bottom or right edge of the image is averaged over its pixels
+     * inside the image.
+     * @param image Image object
+     * @param row index of the first row of the SubImage
+     * @param col index of the first col of the SubImage
+     * @param subImageSize SubImage dimensions
+     * @param lut the lookup tables converting the pixels to grey levels
+     * @return Average Brightness of the SubImage
+     */
+    static float averageBrightness(Image image, int row, int col, int subImageSize, LuminanceLut lut) {
+        int rows = Math.min(subImageSize, image.getHeight() - row);
+        int cols = Math.min(subImageSize, image.getWidth() - col);
+        long greySum = 0;
+        for (int x = row; x < row + rows; x++) {
+            for (int y = col; y < col + cols; y++) {
+                greySum += lut.greyLevel(image.getRGB(x, y));
+            }
+        }
+        return LuminanceLut.brightness(greySum, (long) rows * cols);
+    }
+
+    /**
+     * Sums the grey levels of a rectangle of the image.
+     * @param row index of the first row of the rectangle
+     * @param col index of the first col of the rectangle
+     * @param rows number of rows in the rectangle
+     * @param cols number of cols in the rectangle
+     * @return the sum of the fixed-point grey levels of the pixels inside the rectangle
+     */
+    long greySum(int row, int col, int rows, int cols) {
+        int top = row * tableWidth, bottom = (row + rows) * tableWidth;
+        return sumTable[bottom + col + cols] - sumTable[bottom + col] - sumTable[top + col + cols] + sumTable[top + col];
+    }
+
+    /**
+     * Average brightness of a square SubImage. A SubImage crossing the bottom or right edge of the image is averaged
+     * over its pixels inside the image.
+     * @param row index of the first row of the SubImage
+     * @param col index of the first col of the SubImage
+     * @param subImageSize SubImage dimensions
+     * @return Average Brightness of the SubImage
+     */
+    @Override
+    public float averageBrightness(int row, int col, int subImageSize) {
+        int rows = Math.min(subImageSize, imageHeight - row);
+        int cols = Math.min(subImageSize, tableWidth - 1 - col);
+        return LuminanceLut.brightness(greySum(row, col, rows, cols), (long) rows * cols);
+    }
+}
@@ -0,0 +1,13 @@
+package ascii_art.img_to_char;
+
+/**
+ * ScalarLuminanceKernel class - converts the pixels one at a time, on any JVM.
+ */
+class ScalarLuminanceKernel implements LuminanceKernel {
+    @Override
+    public void greyLevels(int[] pixels, int[] greyLevels, int length, LuminanceLut lut) {
+        for (int i = 0; i < length; i++) {
+            greyLevels[i] = lut.greyLevel(pixels[i]);
+        }
+    }
+}
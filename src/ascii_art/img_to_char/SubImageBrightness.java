@@ -0,0 +1,16 @@
+package ascii_art.img_to_char;
+
+/**
+ * A source of the average brightness of the square SubImages of an image.
+ */
+interface SubImageBrightness {
+    /**
+     * Average brightness of a square SubImage. Sources that accept SubImages crossing the bottom or right edge of the
+     * image average them over their pixels inside the image.
+     * @param row index of the first row of the SubImage
+     * @param col index of the first col of the SubImage
+     * @param subImageSize SubImage dimensions
+     * @return Average Brightness of the SubImage
+     */
+    float averageBrightness(int row, int col, int subImageSize);
+}
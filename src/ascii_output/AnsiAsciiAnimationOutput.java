@@ -0,0 +1,34 @@
+package ascii_output;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Output the frames of an animation to an ANSI terminal, drawing every frame over the previous one by rewriting only
+ * the chars that changed.
+ */
+public class AnsiAsciiAnimationOutput implements AsciiAnimationOutput {
+    private final PrintStream out;
+
+    public AnsiAsciiAnimationOutput() {
+        this(System.out);
+    }
+
+    public AnsiAsciiAnimationOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void output(List<char[][]> frames, int frameDelayMillis) {
+        ConsoleAsciiOutput console = new ConsoleAsciiOutput(out, false, true);
+        for (char[][] chars : frames) {
+            console.output(chars);
+            try {
+                Thread.sleep(frameDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
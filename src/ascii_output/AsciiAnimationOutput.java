@@ -0,0 +1,14 @@
+package ascii_output;
+
+import java.util.List;
+
+/**
+ * An object implementing this interface can output a sequence of 2D arrays
+ * of chars, the frames of an animation, in some fashion.
+ */
+public interface AsciiAnimationOutput {
+    /**
+     * Output the specified frames, each one shown for the specified delay
+     */
+    void output(List<char[][]> frames, int frameDelayMillis);
+}
@@ -0,0 +1,159 @@
+package ascii_output;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Output a 2D array of chars to an HTML file viewable in a web browser, every char in its own color.
+ * Colors are quantized to a few bits per channel, and every run of consecutive chars of a row with the same quantized
+ * color is wrapped in a single span, so a page only grows with the number of color changes and not with the number
+ * of chars. Spaces have no visible color and never break a run.
+ * The colors are passed along with the chars of every page, so one instance can write pages from several threads.
+ * A page written without colors, through the entry points of AsciiOutput and HtmlAsciiOutput, is the same as
+ * HtmlAsciiOutput's: every char in the default color of the page.
+ */
+public class ColorHtmlAsciiOutput extends HtmlAsciiOutput {
+    private static final int DEFAULT_COLOR_BITS = 4;
+    private static final int MAX_COLOR_BITS = 8;
+    private static final int MAX_CHANNEL_VAL = 255;
+    private static final int SHORT_HEX_FACTOR = 17;
+    private static final char[] SPAN_START = "<span style=\"color:#".toCharArray();
+    private static final char[] SPAN_START_END = "\">".toCharArray();
+    private static final char[] SPAN_END = "</span>".toCharArray();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int MAX_SPAN_LENGTH = SPAN_START.length + 6 + SPAN_START_END.length + SPAN_END.length;
+    private static final int NO_COLOR = -1;
+
+    private final int colorLevels;
+
+    public ColorHtmlAsciiOutput(String filename, String fontName) {
+        this(filename, fontName, DEFAULT_COLOR_BITS);
+    }
+
+    /**
+     * @param colorBits number of bits kept of every color channel, between 1 and 8. Fewer bits merge more chars into
+     * the same span.
+     */
+    public ColorHtmlAsciiOutput(String filename, String fontName, int colorBits) {
+        super(filename, fontName);
+        if (colorBits < 1 || colorBits > MAX_COLOR_BITS) {
+            throw new IllegalArgumentException("Color bits must be between 1 and " + MAX_COLOR_BITS);
+        }
+        this.colorLevels = (1 << colorBits) - 1;
+    }
+
+    /**
+     * Output the specified 2D array of chars, every char in the color at the same position.
+     * @param colors RGB colors (0xRRGGBB), with the same dimensions as chars
+     */
+    @Override
+    public void output(char[][] chars, int[][] colors) {
+        super.output(chars, colors);
+    }
+
+    /**
+     * Writes the specified 2D array of chars to the file, every char in the color at the same position, like output
+     * but throwing on a failure instead of logging it.
+     * @param colors RGB colors (0xRRGGBB), with the same dimensions as chars
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public void writeFile(char[][] chars, int[][] colors) throws IOException {
+        super.writeFile(chars, colors);
+    }
+
+    /**
+     * Writes the HTML page of the specified 2D array of chars, every char in the color at the same position, to a
+     * channel instead of the file. The channel is left open.
+     * @param colors RGB colors (0xRRGGBB), with the same dimensions as chars
+     * @param channel the channel to write to
+     * @throws IOException if the channel fails
+     */
+    public void write(char[][] chars, int[][] colors, WritableByteChannel channel) throws IOException {
+        writePage(chars, colors, channel);
+    }
+
+    /**
+     * Writes the HTML page of the specified 2D array of chars, every char in the color at the same position, to a
+     * channel without a file, keeping 4 bits of every color channel. The channel is left open.
+     * @param colors RGB colors (0xRRGGBB), with the same dimensions as chars
+     * @param fontName the font of the page
+     * @param channel the channel to write to
+     * @throws IOException if the channel fails
+     */
+    public static void write(char[][] chars, int[][] colors, String fontName, WritableByteChannel channel)
+            throws IOException {
+        new ColorHtmlAsciiOutput(null, fontName).write(chars, colors, channel);
+    }
+
+    @Override
+    int maxRowLength(char[] row, int[] rowColors) {
+        if (rowColors == null) {
+            return super.maxRowLength(row, null);
+        }
+        return super.maxRowLength(row, rowColors) + row.length * MAX_SPAN_LENGTH;
+    }
+
+    @Override
+    int appendRow(char[] row, int[] rowColors, char[] buffer) {
+        if (rowColors == null) {
+            return super.appendRow(row, null, buffer);
+        }
+        int length = 0;
+        int spanColor = NO_COLOR;
+        for (int x = 0; x < row.length; x++) {
+            if (row[x] != ' ') {
+                int color = quantize(rowColors[x]);
+                if (color != spanColor) {
+                    if (spanColor != NO_COLOR) {
+                        length = append(SPAN_END, buffer, length);
+                    }
+                    length = appendSpanStart(color, buffer, length);
+                    spanColor = color;
+                }
+            }
+            length = appendEscaped(row[x], buffer, length);
+        }
+        if (spanColor != NO_COLOR) {
+            length = append(SPAN_END, buffer, length);
+        }
+        return length;
+    }
+
+    /**
+     * Rounds every channel of a color to the nearest of the levels kept.
+     */
+    private int quantize(int rgb) {
+        return quantizeChannel((rgb >> 16) & 0xFF) << 16 | quantizeChannel((rgb >> 8) & 0xFF) << 8 |
+                quantizeChannel(rgb & 0xFF);
+    }
+
+    private int quantizeChannel(int channel) {
+        int level = (channel * colorLevels + MAX_CHANNEL_VAL / 2) / MAX_CHANNEL_VAL;
+        return (level * MAX_CHANNEL_VAL + colorLevels / 2) / colorLevels;
+    }
+
+    /**
+     * Appends the opening tag of a span, with the 3 digits form of the color when it has one.
+     */
+    private static int appendSpanStart(int rgb, char[] buffer, int offset) {
+        offset = append(SPAN_START, buffer, offset);
+        int red = (rgb >> 16) & 0xFF, green = (rgb >> 8) & 0xFF, blue = rgb & 0xFF;
+        if (red % SHORT_HEX_FACTOR == 0 && green % SHORT_HEX_FACTOR == 0 && blue % SHORT_HEX_FACTOR == 0) {
+            buffer[offset++] = HEX_DIGITS[red / SHORT_HEX_FACTOR];
+            buffer[offset++] = HEX_DIGITS[green / SHORT_HEX_FACTOR];
+            buffer[offset++] = HEX_DIGITS[blue / SHORT_HEX_FACTOR];
+        }
+        else {
+            for (int shift = 20; shift >= 0; shift -= 4) {
+                buffer[offset++] = HEX_DIGITS[(rgb >> shift) & 0xF];
+            }
+        }
+        return append(SPAN_START_END, buffer, offset);
+    }
+
+    private static int append(char[] chars, char[] buffer, int offset) {
+        System.arraycopy(chars, 0, buffer, offset, chars.length);
+        return offset + chars.length;
+    }
+}
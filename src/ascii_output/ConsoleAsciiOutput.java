@@ -1,16 +1,135 @@
 package ascii_output;
 
+import java.io.PrintStream;
+
 /**
  * Output a 2D array of chars to the console.
+ * The whole frame is assembled in one reusable buffer and printed with a single write. In ANSI mode, a frame with the
+ * same dimensions as the previous one only rewrites the cells that changed, moving the cursor with ANSI escape codes.
+ * The cursor positions are counted from the top left of the screen, so they are only right while nothing else was
+ * printed since the previous frame: after other output, call redrawNextFrame so that the next frame is drawn whole.
  * @author Dan Nirel
  */public class ConsoleAsciiOutput implements AsciiOutput{
+    private static final String CHAR_SEPARATOR = " ";
+    private static final String HOME_CURSOR = "\u001b[H";
+    private static final String ERASE_LINE_END = "\u001b[K";
+    private static final String ERASE_SCREEN_END = "\u001b[J";
+    private static final String MOVE_CURSOR_FORMAT = "\u001b[%d;%dH";
+
+    private final PrintStream out;
+    private final boolean spaced;
+    private final boolean ansi;
+    private final StringBuilder frame = new StringBuilder();
+    private char[][] previousChars;
+
+    /**
+     * Prints every char followed by a space to System.out, without ANSI codes.
+     */
+    public ConsoleAsciiOutput() {
+        this(System.out, true, false);
+    }
+
+    /**
+     * @param out the stream to print to
+     * @param spaced if true, every char is followed by a space
+     * @param ansi if true, frames are drawn over the screen from its top left and the next frames of the same
+     * dimensions only rewrite the cells that changed
+     */
+    public ConsoleAsciiOutput(PrintStream out, boolean spaced, boolean ansi) {
+        this.out = out;
+        this.spaced = spaced;
+        this.ansi = ansi;
+    }
+
     @Override
     public void output(char[][] chars) {
-        for (int y = 0; y < chars.length ; y++) {
-            for (int x = 0; x < chars[y].length; x++) {
-                System.out.print(chars[y][x] + " ");
+        frame.setLength(0);
+        if (ansi && sameDimensions(chars)) {
+            appendChangedCells(chars);
+        }
+        else {
+            if (ansi) {
+                frame.append(HOME_CURSOR);
             }
-            System.out.println();
+            appendFrame(chars);
+            if (ansi) {
+                frame.append(ERASE_SCREEN_END);
+            }
+        }
+        out.print(frame);
+        out.flush();
+        if (ansi) {
+            previousChars = copy(chars);
+        }
+    }
+
+    /**
+     * Forgets the previous frame, so that the next one is drawn whole from the top left of the screen (erasing
+     * whatever else is on it) instead of only its changed cells. Called after other output, such as a prompt, was
+     * printed and may have scrolled the previous frame up the screen.
+     */
+    public void redrawNextFrame() {
+        previousChars = null;
+    }
+
+    private void appendFrame(char[][] chars) {
+        for (char[] row : chars) {
+            for (char c : row) {
+                frame.append(c);
+                if (spaced) {
+                    frame.append(CHAR_SEPARATOR);
+                }
+            }
+            if (ansi) {
+                frame.append(ERASE_LINE_END);
+            }
+            frame.append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Appends, for every run of changed cells in a row, a cursor move to its first cell followed by its chars, and
+     * then a cursor move to the line below the frame.
+     */
+    private void appendChangedCells(char[][] chars) {
+        int cellWidth = spaced ? 1 + CHAR_SEPARATOR.length() : 1;
+        for (int y = 0; y < chars.length; y++) {
+            int x = 0;
+            while (x < chars[y].length) {
+                if (chars[y][x] == previousChars[y][x]) {
+                    x++;
+                    continue;
+                }
+                frame.append(String.format(MOVE_CURSOR_FORMAT, y + 1, x * cellWidth + 1));
+                while (x < chars[y].length && chars[y][x] != previousChars[y][x]) {
+                    frame.append(chars[y][x]);
+                    if (spaced) {
+                        frame.append(CHAR_SEPARATOR);
+                    }
+                    x++;
+                }
+            }
+        }
+        frame.append(String.format(MOVE_CURSOR_FORMAT, chars.length + 1, 1));
+    }
+
+    private boolean sameDimensions(char[][] chars) {
+        if (previousChars == null || previousChars.length != chars.length) {
+            return false;
+        }
+        for (int y = 0; y < chars.length; y++) {
+            if (previousChars[y].length != chars[y].length) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char[][] copy(char[][] chars) {
+        char[][] copy = new char[chars.length][];
+        for (int y = 0; y < chars.length; y++) {
+            copy[y] = chars[y].clone();
         }
+        return copy;
     }
 }
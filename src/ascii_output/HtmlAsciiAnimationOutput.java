@@ -0,0 +1,71 @@
+package ascii_output;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Output the frames of an animation to an HTML file viewable in a web browser, where a small script shows the frames
+ * one after the other in a loop.
+ */
+public class HtmlAsciiAnimationOutput implements AsciiAnimationOutput {
+    private static final double BASE_LINE_SPACING = 0.8;
+    private static final double BASE_FONT_SIZE = 150.0;
+
+    private final String fontName;
+    private final String filename;
+
+    public HtmlAsciiAnimationOutput(String filename, String fontName) {
+        this.fontName = fontName;
+        this.filename = filename;
+    }
+
+    @Override
+    public void output(List<char[][]> frames, int frameDelayMillis) {
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+            int charsInRow = frames.isEmpty() || frames.get(0).length == 0 ? 1 : frames.get(0)[0].length;
+            writer.write(String.format(
+                "<!DOCTYPE html>\n"+
+                "<html>\n"+
+                "<body style=\""+
+                    "\tCOLOR:#000000;"+
+                    "\tTEXT-ALIGN:center;"+
+                    "\tFONT-SIZE:1px;\">\n"+
+                "<style>p {"+
+                    "\twhite-space:pre;"+
+                    "\tFONT-FAMILY:%s;"+
+                    "\tFONT-SIZE:%frem;"+
+                    "\tLETTER-SPACING:0.15em;"+
+                    "\tLINE-HEIGHT:%fem;"+
+                    "\tdisplay:none;}</style>\n",
+                    fontName, BASE_FONT_SIZE/charsInRow, BASE_LINE_SPACING));
+
+            for (char[][] chars : frames) {
+                writer.write("<p>\n");
+                for(int y = 0 ; y < chars.length ; y++) {
+                    for (int x = 0; x < chars[y].length ; x++) {
+                        writer.write(HtmlAsciiOutput.htmlRepresentation(chars[y][x]));
+                    }
+                    writer.newLine();
+                }
+                writer.write("</p>\n");
+            }
+            writer.write(String.format(
+                "<script>\n"+
+                "var frames = document.getElementsByTagName(\"p\"), current = 0;\n"+
+                "frames[0].style.display = \"block\";\n"+
+                "setInterval(function() {\n"+
+                "\tframes[current].style.display = \"none\";\n"+
+                "\tcurrent = (current + 1) %% frames.length;\n"+
+                "\tframes[current].style.display = \"block\";\n"+
+                "}, %d);\n"+
+                "</script>\n"+
+                "</body>\n"+
+                "</html>\n", frameDelayMillis));
+        } catch(IOException e) {
+            Logger.getGlobal().severe(String.format("Failed to write to \"%s\"", filename));
+        }
+    }
+}
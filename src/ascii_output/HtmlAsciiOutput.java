@@ -1,63 +1,244 @@
 package ascii_output;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Output a 2D array of chars to an HTML file viewable in a web browser.
+ * Every row is escaped at once into a reusable char buffer and encoded into a large byte buffer that is written to
+ * the file channel only when full, optionally through gzip compression.
  * @author Dan Nirel
  */
 public class HtmlAsciiOutput implements AsciiOutput {
     private static final double BASE_LINE_SPACING = 0.8;
     private static final double BASE_FONT_SIZE = 150.0;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final char[][] HTML_ESCAPES = new char[128][];
+    private static final int MAX_ESCAPE_LENGTH = 5;
+    static {
+        HTML_ESCAPES['<'] = "&lt;".toCharArray();
+        HTML_ESCAPES['>'] = "&gt;".toCharArray();
+        HTML_ESCAPES['&'] = "&amp;".toCharArray();
+    }
 
     private final String fontName;
     private final String filename;
+    private final boolean gzip;
 
     public HtmlAsciiOutput(String filename, String fontName) {
+        this(filename, fontName, false);
+    }
+
+    /**
+     * @param gzip if true, the file is written gzip compressed, and ".gz" is added to its name if it doesn't end
+     * with it already.
+     */
+    public HtmlAsciiOutput(String filename, String fontName, boolean gzip) {
         this.fontName = fontName;
-        this.filename = filename;
+        this.filename = gzip && !filename.endsWith(GZIP_SUFFIX) ? filename + GZIP_SUFFIX : filename;
+        this.gzip = gzip;
     }
 
     @Override
     public void output(char[][] chars) {
-        try(BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            writer.write(String.format(
-                "<!DOCTYPE html>\n"+
-                "<html>\n"+
-                "<body style=\""+
-                    "\tCOLOR:#000000;"+
-                    "\tTEXT-ALIGN:center;"+
-                    "\tFONT-SIZE:1px;\">\n"+
-                "<p style=\""+
-                    "\twhite-space:pre;"+
-                    "\tFONT-FAMILY:%s;"+
-                    "\tFONT-SIZE:%frem;"+
-                    "\tLETTER-SPACING:0.15em;"+
-                    "\tLINE-HEIGHT:%fem;\">\n",
-                    fontName, BASE_FONT_SIZE/chars[0].length, BASE_LINE_SPACING));
-
-            for(int y = 0 ; y < chars.length ; y++) {
-                for (int x = 0; x < chars[y].length ; x++) {
-                    String htmlRep;
-                    switch(chars[y][x]) {
-                        case '<': htmlRep = "&lt;";  break;
-                        case '>': htmlRep = "&gt;";  break;
-                        case '&': htmlRep = "&amp;"; break;
-                        default:  htmlRep = String.valueOf(chars[y][x]);
-                    }
-                    writer.write(htmlRep);
-                }
-                writer.newLine();
-            }
-            writer.write(
-                "</p>\n"+
-                "</body>\n"+
-                "</html>\n");
+        output(chars, null);
+    }
+
+    /**
+     * Output the specified 2D array of chars to the file, logging a failure.
+     * @param colors RGB colors (0xRRGGBB) with the same dimensions as chars, or null for a page without colors
+     */
+    void output(char[][] chars, int[][] colors) {
+        try {
+            writeFile(chars, colors);
         } catch(IOException e) {
             Logger.getGlobal().severe(String.format("Failed to write to \"%s\"", filename));
         }
     }
+
+    /**
+     * Writes the HTML page of the specified 2D array of chars to the file, like output but throwing on a failure
+     * instead of logging it.
+     * @throws IOException if the file can't be written
+     */
+    public void writeFile(char[][] chars) throws IOException {
+        writeFile(chars, null);
+    }
+
+    /**
+     * Writes the HTML page of the specified 2D array of chars to the file.
+     * @param colors RGB colors (0xRRGGBB) with the same dimensions as chars, or null for a page without colors
+     * @throws IOException if the file can't be written
+     */
+    void writeFile(char[][] chars, int[][] colors) throws IOException {
+        try(WritableByteChannel channel = openChannel()) {
+            writePage(chars, colors, channel);
+        }
+    }
+
+    /**
+     * Writes the HTML page of the specified 2D array of chars to a channel instead of the file, in the default
+     * charset. The channel is left open.
+     * @param channel the channel to write to
+     * @throws IOException if the channel fails
+     */
+    public void write(char[][] chars, WritableByteChannel channel) throws IOException {
+        writePage(chars, null, channel);
+    }
+
+    /**
+     * Writes the HTML page of the specified 2D array of chars to a channel, in the default charset, without a file.
+     * The channel is left open.
+     * @param fontName the font of the page
+     * @param channel the channel to write to
+     * @throws IOException if the channel fails
+     */
+    public static void write(char[][] chars, String fontName, WritableByteChannel channel) throws IOException {
+        new HtmlAsciiOutput(null, fontName).write(chars, channel);
+    }
+
+    /**
+     * Writes the HTML page of the specified 2D array of chars to a channel, in the default charset, passing the
+     * colors of every row to appendRow. The channel is left open.
+     * @param colors RGB colors (0xRRGGBB) with the same dimensions as chars, or null for a page without colors
+     * @param channel the channel to write to
+     * @throws IOException if the channel fails
+     */
+    void writePage(char[][] chars, int[][] colors, WritableByteChannel channel) throws IOException {
+        CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        write(String.format(
+            "<!DOCTYPE html>\n"+
+            "<html>\n"+
+            "<body style=\""+
+                "\tCOLOR:#000000;"+
+                "\tTEXT-ALIGN:center;"+
+                "\tFONT-SIZE:1px;\">\n"+
+            "<p style=\""+
+                "\twhite-space:pre;"+
+                "\tFONT-FAMILY:%s;"+
+                "\tFONT-SIZE:%frem;"+
+                "\tLETTER-SPACING:0.15em;"+
+                "\tLINE-HEIGHT:%fem;\">\n",
+                fontName, BASE_FONT_SIZE/chars[0].length, BASE_LINE_SPACING),
+                encoder, bytes, channel);
+
+        String lineSeparator = System.lineSeparator();
+        char[] rowBuffer = new char[0];
+        for(int y = 0 ; y < chars.length ; y++) {
+            int[] rowColors = colors == null ? null : colors[y];
+            int maxRowLength = maxRowLength(chars[y], rowColors) + lineSeparator.length();
+            if (rowBuffer.length < maxRowLength) {
+                rowBuffer = new char[maxRowLength];
+            }
+            int rowLength = appendRow(chars[y], rowColors, rowBuffer);
+            lineSeparator.getChars(0, lineSeparator.length(), rowBuffer, rowLength);
+            rowLength += lineSeparator.length();
+            write(CharBuffer.wrap(rowBuffer, 0, rowLength), encoder, bytes, channel);
+        }
+        write(
+            "</p>\n"+
+            "</body>\n"+
+            "</html>\n", encoder, bytes, channel);
+        encoder.encode(CharBuffer.allocate(0), bytes, true);
+        encoder.flush(bytes);
+        drain(bytes, channel);
+    }
+
+    /**
+     * The HTML representation of a char inside the text of a page.
+     */
+    static String htmlRepresentation(char c) {
+        return c < HTML_ESCAPES.length && HTML_ESCAPES[c] != null ? new String(HTML_ESCAPES[c]) : String.valueOf(c);
+    }
+
+    /**
+     * The maximal length of the HTML representation of a row.
+     * @param rowColors the colors of the row's chars, or null, which this page doesn't use
+     */
+    int maxRowLength(char[] row, int[] rowColors) {
+        return row.length * MAX_ESCAPE_LENGTH;
+    }
+
+    /**
+     * Writes the HTML representation of a row into a buffer of at least maxRowLength chars.
+     * @param rowColors the colors of the row's chars, or null, which this page doesn't use
+     * @return the number of chars written to the buffer
+     */
+    int appendRow(char[] row, int[] rowColors, char[] buffer) {
+        int length = 0;
+        for (char c : row) {
+            length = appendEscaped(c, buffer, length);
+        }
+        return length;
+    }
+
+    /**
+     * Writes the HTML representation of a char into a buffer.
+     * @param offset index in the buffer to write at
+     * @return the index in the buffer after the written chars
+     */
+    static int appendEscaped(char c, char[] buffer, int offset) {
+        char[] escape = c < HTML_ESCAPES.length ? HTML_ESCAPES[c] : null;
+        if (escape == null) {
+            buffer[offset++] = c;
+        }
+        else {
+            System.arraycopy(escape, 0, buffer, offset, escape.length);
+            offset += escape.length;
+        }
+        return offset;
+    }
+
+    private WritableByteChannel openChannel() throws IOException {
+        if (gzip) {
+            return Channels.newChannel(new GZIPOutputStream(Files.newOutputStream(Paths.get(filename)), BUFFER_SIZE));
+        }
+        return FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void write(CharSequence text, CharsetEncoder encoder, ByteBuffer bytes,
+                              WritableByteChannel channel) throws IOException {
+        write(CharBuffer.wrap(text), encoder, bytes, channel);
+    }
+
+    /**
+     * Encodes chars into the byte buffer, writing the buffer to the channel whenever it fills up.
+     */
+    private static void write(CharBuffer chars, CharsetEncoder encoder, ByteBuffer bytes,
+                              WritableByteChannel channel) throws IOException {
+        CoderResult result = encoder.encode(chars, bytes, false);
+        while (result.isOverflow()) {
+            drain(bytes, channel);
+            result = encoder.encode(chars, bytes, false);
+        }
+    }
+
+    /**
+     * Writes everything in the byte buffer to the channel and empties it.
+     */
+    private static void drain(ByteBuffer bytes, WritableByteChannel channel) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
 }
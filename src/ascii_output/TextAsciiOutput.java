@@ -0,0 +1,52 @@
+package ascii_output;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.logging.Logger;
+
+/**
+ * Output a 2D array of chars to a plain text file, one line per row of chars.
+ */
+public class TextAsciiOutput implements AsciiOutput {
+    private final String filename;
+
+    public TextAsciiOutput(String filename) {
+        this.filename = filename;
+    }
+
+    @Override
+    public void output(char[][] chars) {
+        try {
+            writeFile(chars);
+        } catch(IOException e) {
+            Logger.getGlobal().severe(String.format("Failed to write to \"%s\"", filename));
+        }
+    }
+
+    /**
+     * Writes the specified 2D array of chars to the file, like output but throwing on a failure instead of logging
+     * it.
+     * @throws IOException if the file can't be written
+     */
+    public void writeFile(char[][] chars) throws IOException {
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+            write(chars, writer);
+        }
+    }
+
+    /**
+     * Writes the specified 2D array of chars to a writer instead of the file, one line per row of chars. The writer
+     * is left open.
+     * @param writer the writer to write to
+     * @throws IOException if the writer fails
+     */
+    public static void write(char[][] chars, Writer writer) throws IOException {
+        String lineSeparator = System.lineSeparator();
+        for (char[] row : chars) {
+            writer.write(row);
+            writer.write(lineSeparator);
+        }
+    }
+}
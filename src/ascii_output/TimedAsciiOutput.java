@@ -0,0 +1,37 @@
+package ascii_output;
+
+import metrics.Stage;
+import metrics.StageTimer;
+
+/**
+ * Output a 2D array of chars with another AsciiOutput, measuring it as the OUTPUT stage.
+ */
+public class TimedAsciiOutput implements AsciiOutput {
+    private final AsciiOutput asciiOutput;
+
+    /**
+     * @param asciiOutput the measured output
+     */
+    public TimedAsciiOutput(AsciiOutput asciiOutput) {
+        this.asciiOutput = asciiOutput;
+    }
+
+    @Override
+    public void output(char[][] chars) {
+        try (StageTimer timer = StageTimer.start(Stage.OUTPUT)) {
+            asciiOutput.output(chars);
+            timer.setItems(tiles(chars));
+        }
+    }
+
+    /**
+     * The number of chars of a 2D array of chars.
+     */
+    private static long tiles(char[][] chars) {
+        long tiles = 0;
+        for (char[] row : chars) {
+            tiles += row.length;
+        }
+        return tiles;
+    }
+}
@@ -1,7 +1,14 @@
 package image;
 
+import metrics.Stage;
+import metrics.StageTimer;
+
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Iterator;
 
 /**
  * Facade for the image module and an interface representing an image.
@@ -12,6 +19,29 @@ public interface Image {
     int getWidth();
     int getHeight();
 
+    /**
+     * Getter for a pixel packed as an ARGB int, same coordinates as getPixel. Implementations backed by a raster
+     * override it so that hot loops don't allocate a Color per pixel.
+     * @param x x coordinate for row
+     * @param y y coordinate for col
+     * @return The pixel packed as an ARGB int
+     */
+    default int getRGB(int x, int y) {
+        return getPixel(x, y).getRGB();
+    }
+
+    /**
+     * Copies a row of pixels packed as ARGB ints, same as getRGB for every col of the row. Implementations backed by
+     * a raster override it with a single array copy.
+     * @param x x coordinate of the row
+     * @param row array of at least getWidth() ints to fill
+     */
+    default void getRGBRow(int x, int[] row) {
+        for (int y = 0; y < getWidth(); y++) {
+            row[y] = getRGB(x, y);
+        }
+    }
+
     /**
      * Open an image from file. Each dimensions of the returned image is guaranteed
      * to be a power of 2, but the dimensions may be different.
@@ -20,8 +50,127 @@ public interface Image {
      * null otherwise
      */
     static Image fromFile(String filename) {
+        try (StageTimer timer = StageTimer.start(Stage.DECODE)) {
+            Image image = RasterImage.open(filename, null, 0, true);
+            timer.setItems((long) image.getWidth() * image.getHeight());
+            return image;
+        } catch(IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Open an image from file, decoding it at the resolution actually needed instead of the full resolution of the
+     * file: pixels are skipped in both dimensions as long as the image stays at least targetWidth pixels wide.
+     * Each dimensions of the returned image is guaranteed to be a power of 2, but the dimensions may be different.
+     * @param filename a path to an image file on disk
+     * @param targetWidth the minimal width in pixels the image needs
+     * @return an object implementing Image if the operation was successful,
+     * null otherwise
+     */
+    static Image fromFile(String filename, int targetWidth) {
+        return fromFile(filename, null, targetWidth);
+    }
+
+    /**
+     * Open a region of an image from file, decoding only the pixels inside that region, at the resolution actually
+     * needed. Each dimensions of the returned image is guaranteed to be a power of 2, but the dimensions may be
+     * different.
+     * @param filename a path to an image file on disk
+     * @param region the region of interest, x and y are the col and row of its top left pixel in the file, or null
+     * for the whole image
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel of the region
+     * @return an object implementing Image if the operation was successful,
+     * null otherwise
+     */
+    static Image fromFile(String filename, Rectangle region, int targetWidth) {
+        try (StageTimer timer = StageTimer.start(Stage.DECODE)) {
+            Image image = RasterImage.open(filename, region, targetWidth, true);
+            timer.setItems((long) image.getWidth() * image.getHeight());
+            return image;
+        } catch(IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Open an image from file at its own dimensions, without padding: the image keeps exactly the pixels of the file,
+     * decoded at the resolution actually needed like fromFile(filename, targetWidth).
+     * @param filename a path to an image file on disk
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel
+     * @return an object implementing Image if the operation was successful,
+     * null otherwise
+     */
+    static Image fromFileNativeSize(String filename, int targetWidth) {
+        try (StageTimer timer = StageTimer.start(Stage.DECODE)) {
+            Image image = RasterImage.open(filename, null, targetWidth, false);
+            timer.setItems((long) image.getWidth() * image.getHeight());
+            return image;
+        } catch(IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Open an image from the encoded bytes of an image file, at its own dimensions and at the resolution actually
+     * needed like fromFileNativeSize.
+     * @param data the content of an image file
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel
+     * @return an object implementing Image if the operation was successful,
+     * null otherwise
+     */
+    static Image fromBytes(byte[] data, int targetWidth) {
+        try (StageTimer timer = StageTimer.start(Stage.DECODE)) {
+            BufferedImage decoded = RasterImage.readImage(new ByteArrayInputStream(data), "uploaded image", null,
+                    targetWidth);
+            Image image = new RasterImage(decoded, false);
+            timer.setItems((long) image.getWidth() * image.getHeight());
+            return image;
+        } catch(IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the decoded pixels of the images opened from file in a directory from now on, and reads them from there
+     * instead of decoding the same image file again, as long as the file doesn't change. The cached pixels take at
+     * most 1 GiB, the least recently used ones being deleted beyond that.
+     * @param directory a path to the cache directory on disk, created if needed, or null to stop caching
+     * @return true if the operation was successful, false otherwise
+     */
+    static boolean useRasterCache(String directory) {
+        return useRasterCache(directory, RasterCache.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Keeps the decoded pixels of the images opened from file in a directory from now on, like
+     * useRasterCache(directory), with a bound on their total size.
+     * @param directory a path to the cache directory on disk, created if needed, or null to stop caching
+     * @param maxBytes maximal total size of the cached pixels, in bytes, the least recently used ones being deleted
+     * beyond that
+     * @return true if the operation was successful, false otherwise
+     */
+    static boolean useRasterCache(String directory, long maxBytes) {
+        try {
+            RasterCache.setShared(directory == null ? null : new RasterCache(Paths.get(directory), maxBytes));
+            return true;
+        } catch(IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Open the frames of an animation: every image of an animated GIF (or of another multi-image file), or every image
+     * file of a directory in the natural order of their names. The frames are decoded one at a time as they are
+     * iterated, so only the frames the caller keeps stay in memory. Like fromFileNativeSize, every frame keeps the
+     * dimensions of its file (or of the animation's canvas) without padding.
+     * @param path a path to a multi-image file, or to a directory of numbered frames
+     * @return an iterator over the frames if the file or directory could be opened, null otherwise. Its next throws
+     * an UncheckedIOException if a frame can't be read.
+     */
+    static Iterator<Image> framesFromFile(String path) {
         try {
-            return new FileImage(filename);
+            return ImageFrames.read(path);
         } catch(IOException ioe) {
             return null;
         }
@@ -0,0 +1,333 @@
+package image;
+
+import metrics.Stage;
+import metrics.StageTimer;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+/**
+ * A package-private class of the package image.
+ * Reads the frames of an animation, either all the images of a multi-image file such as an animated GIF, or all the
+ * image files of a directory in the natural order of their names. The frames are decoded one at a time, as they are
+ * iterated, so a long animation never holds more than the frames its caller keeps. Like Image.fromFileNativeSize,
+ * frames keep their own dimensions and aren't padded.
+ */
+class ImageFrames {
+    private static final String GIF_FORMAT = "gif";
+    private static final String GIF_STREAM_METADATA = "javax_imageio_gif_stream_1.0";
+    private static final String GIF_IMAGE_METADATA = "javax_imageio_gif_image_1.0";
+    private static final String RESTORE_TO_BACKGROUND = "restoreToBackgroundColor";
+    private static final String RESTORE_TO_PREVIOUS = "restoreToPrevious";
+
+    private ImageFrames() {
+    }
+
+    /**
+     * Opens the frames of an animation. A multi-image file stays open until its last frame is read.
+     * @param path a multi-image file, or a directory of numbered frames
+     * @return an iterator decoding the frames in order, whose next throws an UncheckedIOException if a frame can't
+     * be read
+     * @throws IOException if the file or directory can't be read or the file's format isn't supported
+     */
+    static Iterator<Image> read(String path) throws IOException {
+        File file = new File(path);
+        if (file.isDirectory()) {
+            return readDirectory(file);
+        }
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+        if (readers == null || !readers.hasNext()) {
+            if (input != null) {
+                input.close();
+            }
+            throw new IOException("Unsupported image format: " + path);
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, false, false);
+            return new MultiImageFrames(reader, input);
+        } catch (IOException | RuntimeException e) {
+            reader.dispose();
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lists the image files of a directory, sorted by name with the numbers in them compared by value, so that
+     * frame2 comes before frame10. Files whose suffix isn't an image suffix, such as Thumbs.db, are skipped.
+     * @param dir the directory
+     * @return an iterator decoding the files in order
+     * @throws IOException if the directory can't be listed
+     */
+    private static Iterator<Image> readDirectory(File dir) throws IOException {
+        File[] files = dir.listFiles(file -> file.isFile() && isImageFile(file));
+        if (files == null) {
+            throw new IOException("Failed to list " + dir);
+        }
+        Arrays.sort(files, (first, second) -> compareNames(first.getName(), second.getName()));
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < files.length;
+            }
+
+            @Override
+            public Image next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try (StageTimer timer = StageTimer.start(Stage.DECODE)) {
+                    Image frame = RasterImage.open(files[next++].getPath(), null, 0, false);
+                    timer.setItems((long) frame.getWidth() * frame.getHeight());
+                    return frame;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Checks if a file is an image file, by its suffix.
+     * @param file a file
+     * @return True if the file's suffix is an image suffix, false otherwise.
+     */
+    private static boolean isImageFile(File file) {
+        String name = file.getName();
+        String suffix = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return Arrays.asList(ImageIO.getReaderFileSuffixes()).contains(suffix);
+    }
+
+    /**
+     * Compares two file names char by char, except for runs of digits, which are compared by their value (and by
+     * their length if equal, so that frame01 and frame1 still differ).
+     * @param first a file name
+     * @param second another file name
+     * @return a negative number, zero or a positive number if first comes before, with or after second
+     */
+    private static int compareNames(String first, String second) {
+        int i = 0, j = 0;
+        while (i < first.length() && j < second.length()) {
+            if (!Character.isDigit(first.charAt(i)) || !Character.isDigit(second.charAt(j))) {
+                if (first.charAt(i) != second.charAt(j)) {
+                    return Character.compare(first.charAt(i), second.charAt(j));
+                }
+                i++;
+                j++;
+                continue;
+            }
+            int firstEnd = digitsEnd(first, i), secondEnd = digitsEnd(second, j);
+            int firstStart = skipZeros(first, i, firstEnd), secondStart = skipZeros(second, j, secondEnd);
+            int compared = Integer.compare(firstEnd - firstStart, secondEnd - secondStart);
+            if (compared == 0) {
+                compared = first.substring(firstStart, firstEnd).compareTo(second.substring(secondStart, secondEnd));
+            }
+            if (compared == 0) {
+                compared = Integer.compare(firstEnd - i, secondEnd - j);
+            }
+            if (compared != 0) {
+                return compared;
+            }
+            i = firstEnd;
+            j = secondEnd;
+        }
+        return Integer.compare(first.length() - i, second.length() - j);
+    }
+
+    /**
+     * Finds the end of a run of digits.
+     * @param name a file name
+     * @param start index of the first digit of the run
+     * @return the index after the last digit of the run
+     */
+    private static int digitsEnd(String name, int start) {
+        int end = start;
+        while (end < name.length() && Character.isDigit(name.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Skips the leading zeros of a run of digits, keeping its last digit even if it is a zero.
+     * @param name a file name
+     * @param start index of the first digit of the run
+     * @param end index after the last digit of the run
+     * @return the index of the first significant digit of the run
+     */
+    private static int skipZeros(String name, int start, int end) {
+        while (start < end - 1 && name.charAt(start) == '0') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * The frames of a multi-image file, read one at a time. GIF frames only hold the part of the picture that changed,
+     * so they are drawn one over the other on a canvas, following their position and disposal method, and every frame
+     * is a copy of the canvas. The reader and its input are closed once the last frame is read, or a frame fails.
+     */
+    private static class MultiImageFrames implements Iterator<Image> {
+        private final ImageReader reader;
+        private final ImageInputStream input;
+        private final int numImages;
+        private final BufferedImage canvas;
+        private final Graphics2D graphics;
+        private int next = 0;
+
+        MultiImageFrames(ImageReader reader, ImageInputStream input) throws IOException {
+            this.reader = reader;
+            this.input = input;
+            this.numImages = reader.getNumImages(true);
+            boolean gif = reader.getFormatName().equalsIgnoreCase(GIF_FORMAT) && numImages > 0;
+            this.canvas = gif ? createCanvas(reader) : null;
+            this.graphics = gif ? canvas.createGraphics() : null;
+            if (numImages == 0) {
+                close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < numImages;
+        }
+
+        @Override
+        public Image next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                Image frame = canvas == null ? new RasterImage(reader.read(next), false) : drawFrame(next);
+                if (++next == numImages) {
+                    close();
+                }
+                return frame;
+            } catch (IOException e) {
+                next = numImages;
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Draws a GIF frame over the canvas and disposes of it as its metadata says, after copying the canvas.
+         * @param index index of the frame
+         * @return the frame as it is shown
+         * @throws IOException if the frame can't be read
+         */
+        private Image drawFrame(int index) throws IOException {
+            BufferedImage frame = reader.read(index);
+            Node metadata = reader.getImageMetadata(index).getAsTree(GIF_IMAGE_METADATA);
+            int left = intAttribute(metadata, "ImageDescriptor", "imageLeftPosition");
+            int top = intAttribute(metadata, "ImageDescriptor", "imageTopPosition");
+            String disposal = attribute(metadata, "GraphicControlExtension", "disposalMethod");
+            BufferedImage previous = RESTORE_TO_PREVIOUS.equals(disposal) ? copy(canvas) : null;
+            graphics.drawImage(frame, left, top, null);
+            Image shown = new RasterImage(canvas, false);
+            if (RESTORE_TO_BACKGROUND.equals(disposal)) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(left, top, frame.getWidth(), frame.getHeight());
+            }
+            else if (previous != null) {
+                graphics.drawImage(previous, 0, 0, null);
+            }
+            return shown;
+        }
+
+        private void close() {
+            if (graphics != null) {
+                graphics.dispose();
+            }
+            reader.dispose();
+            try {
+                input.close();
+            } catch (IOException e) {
+                Logger.getGlobal().warning("Failed to close an animation: " + e);
+            }
+        }
+    }
+
+    /**
+     * Creates a white canvas of the size of the GIF's logical screen (or of its first image if it has none).
+     * @param reader a reader with its input set
+     * @return the canvas
+     * @throws IOException if the file can't be read
+     */
+    private static BufferedImage createCanvas(ImageReader reader) throws IOException {
+        int width = reader.getWidth(0), height = reader.getHeight(0);
+        IIOMetadata streamMetadata = reader.getStreamMetadata();
+        if (streamMetadata != null) {
+            Node root = streamMetadata.getAsTree(GIF_STREAM_METADATA);
+            width = Math.max(width, intAttribute(root, "LogicalScreenDescriptor", "logicalScreenWidth"));
+            height = Math.max(height, intAttribute(root, "LogicalScreenDescriptor", "logicalScreenHeight"));
+        }
+        BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = canvas.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return canvas;
+    }
+
+    /**
+     * Copies an image.
+     * @param image an image
+     * @return a copy of the image
+     */
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+
+    /**
+     * Finds an attribute of a child node of a metadata tree.
+     * @param root root of the metadata tree
+     * @param nodeName name of the child node
+     * @param attributeName name of the attribute
+     * @return the attribute's value, or null if there is no such node or attribute
+     */
+    private static String attribute(Node root, String nodeName, String attributeName) {
+        for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeName().equals(nodeName)) {
+                NamedNodeMap attributes = child.getAttributes();
+                Node attribute = attributes == null ? null : attributes.getNamedItem(attributeName);
+                return attribute == null ? null : attribute.getNodeValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds an int attribute of a child node of a metadata tree.
+     * @param root root of the metadata tree
+     * @param nodeName name of the child node
+     * @param attributeName name of the attribute
+     * @return the attribute's value, or 0 if there is no such node or attribute
+     */
+    private static int intAttribute(Node root, String nodeName, String attributeName) {
+        String value = attribute(root, nodeName, attributeName);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,267 @@
+package image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A package-private class of the package image.
+ * RasterCache keeps the decoded pixels of image files in a directory, one raw file of packed ARGB ints per decoded
+ * image, so the next load of the same image maps that file and copies its pixels instead of decoding the image again.
+ * A cached raster is keyed by the source's path, size and modification time, and by the region and target width it
+ * was decoded with: editing the source or asking for another resolution decodes it again.
+ * The cached rasters are bounded in total size: once a new raster goes over the bound, the least recently used ones
+ * are deleted.
+ */
+final class RasterCache {
+    private static final int MAGIC = 0x41535243;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 5;
+    private static final String SUFFIX = ".raster";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    static final long DEFAULT_MAX_BYTES = 1L << 30;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static volatile RasterCache shared;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * Constructor for RasterCache.
+     * @param directory the directory of the cached rasters, created if it doesn't exist
+     * @param maxBytes maximal total size of the cached rasters, in bytes
+     * @throws IOException if the directory can't be created
+     */
+    RasterCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the cache used when opening images from file.
+     * @param cache the cache, or null to always decode the image files
+     */
+    static void setShared(RasterCache cache) {
+        shared = cache;
+    }
+
+    /**
+     * Getter for the cache used when opening images from file.
+     * @return the cache, or null if there is none
+     */
+    static RasterCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Opens an image from file, reading its pixels from the cache if they are there, and decoding and caching them
+     * otherwise.
+     * @param filename file's name
+     * @param region region of interest, or null for the whole image.
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel.
+     * @param pad if true, the image is padded with White Color Pixels to dimensions that are a Power of 2
+     * @return the image
+     * @throws IOException if the file can't be decoded
+     */
+    RasterImage open(String filename, Rectangle region, int targetWidth, boolean pad) throws IOException {
+        Path source = Paths.get(filename).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        String key = source + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis() + "|" +
+                (region == null ? "" : region.x + "," + region.y + "," + region.width + "," + region.height) + "|" +
+                targetWidth;
+        Path cached = directory.resolve(digest(key) + SUFFIX);
+        RasterImage image = read(cached, key, pad);
+        if (image != null) {
+            touch(cached);
+            return image;
+        }
+        BufferedImage decoded = RasterImage.readImage(filename, region, targetWidth);
+        int width = decoded.getWidth(), height = decoded.getHeight();
+        int[] pixels = decoded.getRGB(0, 0, width, height, null, 0, width);
+        try {
+            write(cached, key, pixels, width, height);
+        } catch (IOException e) {
+            Logger.getGlobal().warning(String.format("Failed to cache the raster of \"%s\": %s", filename, e));
+        }
+        return new RasterImage(pixels, width, height, pad);
+    }
+
+    /**
+     * Reads a cached raster through a mapping of its file.
+     * @return the image, or null if the raster isn't cached, or was cached for another key or in another format
+     */
+    private static RasterImage read(Path cached, String key, boolean pad) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(cached, StandardOpenOption.READ)) {
+            long headerBytes = headerBytes(keyBytes.length);
+            if (channel.size() < headerBytes) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            int width = mapped.getInt(2 * Integer.BYTES), height = mapped.getInt(3 * Integer.BYTES);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(Integer.BYTES) != VERSION ||
+                    mapped.getInt(4 * Integer.BYTES) != keyBytes.length ||
+                    channel.size() != headerBytes + (long) width * height * Integer.BYTES) {
+                return null;
+            }
+            byte[] cachedKey = new byte[keyBytes.length];
+            mapped.get(HEADER_INTS * Integer.BYTES, cachedKey);
+            if (!MessageDigest.isEqual(keyBytes, cachedKey)) {
+                return null;
+            }
+            int[] pixels = new int[width * height];
+            mapped.position((int) headerBytes);
+            mapped.asIntBuffer().get(pixels);
+            return new RasterImage(pixels, width, height, pad);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a raster to a temporary file of the cache directory, then moves it to its place once the file is closed,
+     * so that concurrent loads never read a partial raster. The file isn't mapped, since a mapped file can't be moved
+     * on every platform. A raster larger than the bound of the cache isn't written at all.
+     */
+    private void write(Path cached, String key, int[] pixels, int width, int height) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long headerBytes = headerBytes(keyBytes.length);
+        if (headerBytes + (long) pixels.length * Integer.BYTES > maxBytes) {
+            return;
+        }
+        Path temp = Files.createTempFile(directory, null, TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate((int) headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(keyBytes.length);
+                header.put(keyBytes);
+                header.rewind();
+                writeFully(channel, header);
+                ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int from = 0; from < pixels.length; ) {
+                    int count = Math.min(pixels.length - from, WRITE_BUFFER_BYTES / Integer.BYTES);
+                    buffer.clear();
+                    buffer.asIntBuffer().put(pixels, from, count);
+                    buffer.limit(count * Integer.BYTES);
+                    writeFully(channel, buffer);
+                    from += count;
+                }
+                channel.force(false);
+            }
+            Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        evict(cached);
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer to a channel.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Marks a cached raster as just used, so that it is evicted after the rasters used before it.
+     */
+    private static void touch(Path cached) {
+        try {
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the raster was evicted or replaced meanwhile, it is cached again on its next load
+        }
+    }
+
+    /**
+     * Deletes the least recently used rasters until the cached rasters fit in the bound of the cache.
+     * @param kept the raster just written, which is never deleted
+     */
+    private void evict(Path kept) throws IOException {
+        List<Map.Entry<Path, BasicFileAttributes>> rasters = new ArrayList<>();
+        long totalBytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    rasters.add(new AbstractMap.SimpleImmutableEntry<>(file, attributes));
+                    totalBytes += attributes.size();
+                } catch (NoSuchFileException e) {
+                    // evicted by another load meanwhile
+                }
+            }
+        }
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+        rasters.sort(Map.Entry.comparingByValue((first, second) ->
+                first.lastModifiedTime().compareTo(second.lastModifiedTime())));
+        for (Map.Entry<Path, BasicFileAttributes> raster : rasters) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            if (raster.getKey().equals(kept)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(raster.getKey());
+                totalBytes -= raster.getValue().size();
+            } catch (IOException e) {
+                Logger.getGlobal().warning(String.format("Failed to evict the cached raster \"%s\": %s",
+                        raster.getKey(), e));
+            }
+        }
+    }
+
+    /**
+     * Size of the header of a cached raster, aligned so that the pixels start on an int boundary.
+     */
+    private static long headerBytes(int keyLength) {
+        long bytes = HEADER_INTS * Integer.BYTES + keyLength;
+        return (bytes + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+    }
+
+    /**
+     * Name of the file of a cached raster: the hex digest of its key.
+     */
+    private static String digest(String key) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance(DIGEST_ALGORITHM).digest(key.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A package-private class of the package image.
+ * RasterImage keeps the pixels of the image in a single flat array of packed ARGB ints (row after row) instead of a
+ * Color object per pixel, so loading a large image costs one int per pixel and no allocations per pixel.
+ */
+class RasterImage implements Image {
+    private static final int DEFAULT_RGB = Color.WHITE.getRGB();
+    private final int imageWidth;
+    private final int imageHeight;
+
+    private final int[] pixelArray;
+
+    /**
+     * Constructor for RasterImage - Builds a RasterImage object and fills the packed pixels array straight from the
+     * decoded image data, if padding is needed to complete the image dimensions to a Power of 2, the Image will be
+     * padded with White Color Pixels.
+     * @param filename file's name
+     * @throws IOException
+     */
+    public RasterImage(String filename) throws IOException {
+        this(readImage(filename, null, 0));
+    }
+
+    /**
+     * Constructor for RasterImage that decodes only the part of the file it needs: the pixels inside the region of
+     * interest, and only every n-th pixel of them in both dimensions when the region is several times wider than the
+     * target width.
+     * @param filename file's name
+     * @param region region of interest, x and y are the col and row of its top left pixel in the file, or null for
+     * the whole image.
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel.
+     * @throws IOException
+     */
+    public RasterImage(String filename, Rectangle region, int targetWidth) throws IOException {
+        this(readImage(filename, region, targetWidth));
+    }
+
+    /**
+     * Constructor for RasterImage that decodes only the part of the file it needs, like the constructor above, and
+     * optionally keeps the decoded dimensions instead of padding them to a Power of 2.
+     * @param filename file's name
+     * @param region region of interest, or null for the whole image.
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel.
+     * @param pad if true, the image is padded with White Color Pixels to dimensions that are a Power of 2
+     * @throws IOException
+     */
+    public RasterImage(String filename, Rectangle region, int targetWidth, boolean pad) throws IOException {
+        this(readImage(filename, region, targetWidth), pad);
+    }
+
+    /**
+     * Constructor for RasterImage from an already decoded image, padded to dimensions that are a Power of 2.
+     * @param im a decoded image
+     */
+    RasterImage(BufferedImage im) {
+        this(im, true);
+    }
+
+    /**
+     * Constructor for RasterImage from an already decoded image.
+     * @param im a decoded image
+     * @param pad if true, the image is padded with White Color Pixels to dimensions that are a Power of 2, otherwise
+     * it keeps its own dimensions.
+     */
+    RasterImage(BufferedImage im, boolean pad) {
+        int origWidth = im.getWidth(), origHeight = im.getHeight();
+        this.imageWidth = pad ? findClosestPowerOfTwo(origWidth) : origWidth;
+        this.imageHeight = pad ? findClosestPowerOfTwo(origHeight) : origHeight;
+        pixelArray = new int[imageWidth * imageHeight];
+        int toPadRows = (imageHeight - origHeight) / 2;
+        int toPadCols = (imageWidth - origWidth) / 2;
+        if (imageWidth != origWidth || imageHeight != origHeight) {
+            Arrays.fill(pixelArray, DEFAULT_RGB);
+        }
+        im.getRGB(0, 0, origWidth, origHeight, pixelArray, toPadRows * imageWidth + toPadCols, imageWidth);
+    }
+
+    /**
+     * Constructor for RasterImage from already decoded pixels.
+     * @param pixels packed ARGB pixels of the decoded image, row after row, kept by the image when it isn't padded
+     * @param width width of the decoded image
+     * @param height height of the decoded image
+     * @param pad if true, the image is padded with White Color Pixels to dimensions that are a Power of 2, otherwise
+     * it keeps its own dimensions.
+     */
+    RasterImage(int[] pixels, int width, int height, boolean pad) {
+        this.imageWidth = pad ? findClosestPowerOfTwo(width) : width;
+        this.imageHeight = pad ? findClosestPowerOfTwo(height) : height;
+        if (imageWidth == width && imageHeight == height) {
+            pixelArray = pixels;
+            return;
+        }
+        pixelArray = new int[imageWidth * imageHeight];
+        Arrays.fill(pixelArray, DEFAULT_RGB);
+        int toPadRows = (imageHeight - height) / 2;
+        int toPadCols = (imageWidth - width) / 2;
+        for (int x = 0; x < height; x++) {
+            System.arraycopy(pixels, x * width, pixelArray, (toPadRows + x) * imageWidth + toPadCols, width);
+        }
+    }
+
+    /**
+     * Opens an image from file through the shared RasterCache if there is one, or by decoding it otherwise.
+     * @param filename file's name
+     * @param region region of interest, or null for the whole image.
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel.
+     * @param pad if true, the image is padded with White Color Pixels to dimensions that are a Power of 2
+     * @return the image
+     * @throws IOException if the file can't be decoded
+     */
+    static RasterImage open(String filename, Rectangle region, int targetWidth, boolean pad) throws IOException {
+        RasterCache cache = RasterCache.getShared();
+        if (cache == null) {
+            return new RasterImage(filename, region, targetWidth, pad);
+        }
+        return cache.open(filename, region, targetWidth, pad);
+    }
+
+    /**
+     * Getter for RasterImage Width
+     * @return RasterImage Width
+     */
+    @Override
+    public int getWidth() {
+        return this.imageWidth;
+    }
+
+    /**
+     * Getter for RasterImage Height
+     * @return RasterImage Height
+     */
+    @Override
+    public int getHeight() {
+        return this.imageHeight;
+    }
+
+    /**
+     * Getter for Color Pixel
+     * @param x x coordinate for row
+     * @param y y coordinate for col
+     * @return A color Type represents Pixel
+     */
+    @Override
+    public Color getPixel(int x, int y) {
+        return new Color(getRGB(x, y));
+    }
+
+    /**
+     * Getter for a packed ARGB Pixel, doesn't allocate anything.
+     * @param x x coordinate for row
+     * @param y y coordinate for col
+     * @return The pixel packed as an ARGB int
+     */
+    @Override
+    public int getRGB(int x, int y) {
+        return pixelArray[x * imageWidth + y];
+    }
+
+    /**
+     * Copies a row of packed ARGB Pixels straight from the raster.
+     * @param x x coordinate of the row
+     * @param row array of at least getWidth() ints to fill
+     */
+    @Override
+    public void getRGBRow(int x, int[] row) {
+        System.arraycopy(pixelArray, x * imageWidth, row, 0, imageWidth);
+    }
+
+    /**
+     * Decodes an image file, using the source region and source subsampling of the image reader so that the pixels
+     * that aren't needed are never decoded.
+     * @param filename file's name
+     * @param region region of interest, or null for the whole image.
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel.
+     * @return the decoded image
+     * @throws IOException if the file can't be read, its format isn't supported or the region is outside the image
+     */
+    static BufferedImage readImage(String filename, Rectangle region, int targetWidth) throws IOException {
+        return readImage(new File(filename), filename, region, targetWidth);
+    }
+
+    /**
+     * Decodes an image from a file or a stream, using the source region and source subsampling of the image reader
+     * so that the pixels that aren't needed are never decoded.
+     * @param source a File or an InputStream to decode
+     * @param name the name of the source in error messages
+     * @param region region of interest, or null for the whole image.
+     * @param targetWidth the minimal width in pixels the image needs, or 0 to decode every pixel.
+     * @return the decoded image
+     * @throws IOException if the source can't be read, its format isn't supported or the region is outside the image
+     */
+    static BufferedImage readImage(Object source, String name, Rectangle region, int targetWidth)
+            throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + name);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                Rectangle sourceRegion = new Rectangle(0, 0, reader.getWidth(0), reader.getHeight(0));
+                if (region != null) {
+                    sourceRegion = sourceRegion.intersection(region);
+                    if (sourceRegion.isEmpty()) {
+                        throw new IOException("Region " + region + " is outside of " + name);
+                    }
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(sourceRegion);
+                int subsampling = targetWidth > 0 ? Math.max(1, sourceRegion.width / targetWidth) : 1;
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Finds the Closest greater Power of 2 of a specific number
+     * @param dimensionLength The dimension length of the row/col of the image.
+     * @return  The Closest greater Power of 2 of a specific number
+     */
+    private static int findClosestPowerOfTwo(int dimensionLength) {
+        int closestPower = 1;
+        while (closestPower < dimensionLength)
+        {
+            closestPower = closestPower << 1;
+        }
+        return  closestPower;
+    }
+}
@@ -6,26 +6,28 @@ import java.awt.*;
 /**
  * SubImage class represents a SubImage of the original given Image. Implements Image interface so we could use iterator
  * to iterate over SubImage objects which is identified as Image.
+ * A SubImage is a view over the original Image: it doesn't copy any pixel, it only translates coordinates.
  */
 class SubImage implements Image {
-    private final int subimageSize;
-    private Color[][] subimageColorArr;
+    private final int subimageWidth;
+    private final int subimageHeight;
+    private final Image image;
+    private final int subimageRowIdx;
+    private final int subimageColIdx;
 
     /**
-     * Constructor for SubImage
+     * Constructor for SubImage, a SubImage crossing the bottom or right edge of the image is cut at the edge.
      * @param subimageSize SubImage dimensions row or col or the same size.
      * @param image Image Object
      * @param subimageRowIdx Index of Row in the original Image.
      * @param subimageColIdx Index of Col in the original Image.
      */
     SubImage(int subimageSize, Image image, int subimageRowIdx, int subimageColIdx) {
-        this.subimageSize = subimageSize;
-        this.subimageColorArr =  new Color[subimageSize][subimageSize];
-        for (int i = 0; i < subimageSize; i++) {
-            for (int j = 0; j < subimageSize; j++) {
-                subimageColorArr[i][j] = image.getPixel(i + subimageRowIdx,j + subimageColIdx);
-            }
-        }
+        this.subimageWidth = Math.min(subimageSize, image.getWidth() - subimageColIdx);
+        this.subimageHeight = Math.min(subimageSize, image.getHeight() - subimageRowIdx);
+        this.image = image;
+        this.subimageRowIdx = subimageRowIdx;
+        this.subimageColIdx = subimageColIdx;
     }
 
     /**
@@ -36,7 +38,18 @@ class SubImage implements Image {
      */
     @Override
     public Color getPixel(int x, int y) {
-        return subimageColorArr[x][y];
+        return image.getPixel(x + subimageRowIdx, y + subimageColIdx);
+    }
+
+    /**
+     * Getter for a packed ARGB Pixel
+     * @param x x coordinate for row
+     * @param y y coordinate for col
+     * @return The pixel packed as an ARGB int
+     */
+    @Override
+    public int getRGB(int x, int y) {
+        return image.getRGB(x + subimageRowIdx, y + subimageColIdx);
     }
 
     /**
@@ -45,7 +58,7 @@ class SubImage implements Image {
      */
     @Override
     public int getWidth() {
-        return this.subimageSize;
+        return this.subimageWidth;
     }
 
     /**
@@ -54,6 +67,6 @@ class SubImage implements Image {
      */
     @Override
     public int getHeight() {
-        return this.subimageSize;
+        return this.subimageHeight;
     }
 }
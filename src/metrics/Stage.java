@@ -0,0 +1,33 @@
+package metrics;
+
+/**
+ * The measured stages of a conversion, each with the unit of the items it processes.
+ */
+public enum Stage {
+    /** Decoding an image file */
+    DECODE("pixels"),
+    /** Rendering the glyphs of chars to measure their brightness */
+    GLYPHS("glyphs"),
+    /** Building the summed-area table or the pyramid of an image's grey levels */
+    BRIGHTNESS("pixels"),
+    /** Filling the brightness of every SubImage of a size from a table or a pyramid */
+    GRID("tiles"),
+    /** Choosing the char of every SubImage */
+    MATCH("tiles"),
+    /** Writing the chars out */
+    OUTPUT("tiles");
+
+    private final String itemUnit;
+
+    Stage(String itemUnit) {
+        this.itemUnit = itemUnit;
+    }
+
+    /**
+     * Getter for the unit of the items the stage processes
+     * @return the unit's name
+     */
+    public String getItemUnit() {
+        return itemUnit;
+    }
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event of one run of a stage, its duration being the run's wall time.
+ */
+@Name("ascii_art.Stage")
+@Label("Ascii Art Stage")
+@Category("Ascii Art")
+@Description("One run of a stage of a conversion")
+class StageEvent extends jdk.jfr.Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Items")
+    @Description("Number of items processed, in the unit of the stage")
+    long items;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread running the stage, -1 if unsupported")
+    @DataAmount
+    long allocatedBytes;
+}
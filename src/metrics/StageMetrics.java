@@ -0,0 +1,93 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StageMetrics class - totals of the runs of every stage since the start (or the last reset), shared by every
+ * thread.
+ */
+public final class StageMetrics {
+    private static final String HEADER_FORMAT = "%-10s %6s %12s %10s %10s %16s %12s%n";
+    private static final String ROW_FORMAT = "%-10s %6d %12d %10.1f %10.3f %16s %12s%n";
+    private static final double NANOS_IN_MILLI = 1e6;
+    private static final double NANOS_IN_SECOND = 1e9;
+    private static final double BYTES_IN_KB = 1024;
+    private static final String NOT_AVAILABLE = "-";
+
+    private static final StageTotals[] totals = new StageTotals[Stage.values().length];
+    static {
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new StageTotals();
+        }
+    }
+
+    private StageMetrics() {
+    }
+
+    /**
+     * Adds a run of a stage to its totals.
+     * @param stage the stage
+     * @param nanos wall time of the run
+     * @param items number of items processed, in the unit of the stage
+     * @param allocatedBytes bytes allocated by the run, or a negative number if unknown
+     */
+    static void record(Stage stage, long nanos, long items, long allocatedBytes) {
+        StageTotals stageTotals = totals[stage.ordinal()];
+        stageTotals.runs.increment();
+        stageTotals.nanos.add(nanos);
+        stageTotals.items.add(items);
+        if (allocatedBytes >= 0) {
+            stageTotals.allocatedBytes.add(allocatedBytes);
+        }
+        else {
+            stageTotals.unknownAllocations.increment();
+        }
+    }
+
+    /**
+     * Clears the totals of every stage.
+     */
+    public static void reset() {
+        for (StageTotals stageTotals : totals) {
+            stageTotals.runs.reset();
+            stageTotals.nanos.reset();
+            stageTotals.items.reset();
+            stageTotals.allocatedBytes.reset();
+            stageTotals.unknownAllocations.reset();
+        }
+    }
+
+    /**
+     * Formats the totals of every stage as a table: runs, items, total and average wall time, items per second and
+     * allocated KB.
+     * @return the table, one line per stage
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder(String.format(HEADER_FORMAT, "stage", "runs", "items", "total ms",
+                "avg ms", "items/s", "alloc KB"));
+        for (Stage stage : Stage.values()) {
+            StageTotals stageTotals = totals[stage.ordinal()];
+            long runs = stageTotals.runs.sum();
+            long nanos = stageTotals.nanos.sum();
+            long items = stageTotals.items.sum();
+            String itemsPerSecond = nanos == 0 || items == 0 ? NOT_AVAILABLE :
+                    String.format("%.0f %s", items * NANOS_IN_SECOND / nanos, stage.getItemUnit());
+            String allocated = runs == 0 || stageTotals.unknownAllocations.sum() > 0 ? NOT_AVAILABLE :
+                    String.format("%.1f", stageTotals.allocatedBytes.sum() / BYTES_IN_KB);
+            report.append(String.format(ROW_FORMAT, stage.name().toLowerCase(), runs, items,
+                    nanos / NANOS_IN_MILLI, runs == 0 ? 0 : nanos / NANOS_IN_MILLI / runs, itemsPerSecond, allocated));
+        }
+        return report.toString();
+    }
+
+    /**
+     * The totals of one stage.
+     */
+    private static final class StageTotals {
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder items = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder unknownAllocations = new LongAdder();
+    }
+}
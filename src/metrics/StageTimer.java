@@ -0,0 +1,82 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * StageTimer class - measures one run of a stage, from its start to its close, and records it in StageMetrics and
+ * as a StageEvent. Meant for a try-with-resources block around the stage's code.
+ * Allocated bytes are those of the thread that started the timer: work a stage hands to other threads is timed but
+ * its allocations aren't counted.
+ */
+public final class StageTimer implements AutoCloseable {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+    private static final long UNSUPPORTED = -1;
+
+    private final Stage stage;
+    private final StageEvent event = new StageEvent();
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private long items = 0;
+
+    private StageTimer(Stage stage) {
+        this.stage = stage;
+        this.startAllocatedBytes = allocatedBytes();
+        event.begin();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring a run of a stage.
+     * @param stage the stage
+     * @return the timer, to close at the end of the run
+     */
+    public static StageTimer start(Stage stage) {
+        return new StageTimer(stage);
+    }
+
+    /**
+     * Setter for the number of items processed by the run.
+     * @param items number of items, in the unit of the stage
+     */
+    public void setItems(long items) {
+        this.items = items;
+    }
+
+    /**
+     * Ends the run and records it.
+     */
+    @Override
+    public void close() {
+        long nanos = System.nanoTime() - startNanos;
+        event.end();
+        long endAllocatedBytes = allocatedBytes();
+        long allocated = startAllocatedBytes == UNSUPPORTED || endAllocatedBytes == UNSUPPORTED ? UNSUPPORTED :
+                endAllocatedBytes - startAllocatedBytes;
+        StageMetrics.record(stage, nanos, items, allocated);
+        if (event.shouldCommit()) {
+            event.stage = stage.name();
+            event.items = items;
+            event.allocatedBytes = allocated;
+            event.commit();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREAD_BEAN == null ? UNSUPPORTED : THREAD_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * The thread bean, if this JVM measures the bytes allocated by a thread.
+     */
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        return bean;
+    }
+}
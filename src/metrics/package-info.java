@@ -0,0 +1,5 @@
+/**
+ * The module measuring the stages of a conversion: wall time, items processed and bytes allocated per stage, also
+ * emitted as JDK Flight Recorder events.
+ */
+package metrics;
@@ -0,0 +1,109 @@
+package ascii_art.img_to_char;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the CharBrightnessIndex Class,</B> against the linear scan of the charSet it replaces.
+ */
+public class CharBrightnessIndexTest {
+
+	private static final long SEED = 4;
+	private static final int CHAR_SETS = 500;
+	private static final int MAX_CHARS = 24;
+	private static final int LEVELS = 16;
+	private static final int RANDOM_QUERIES = 200;
+
+	/**
+	 * Test random charSets, with many chars of the same brightness, at every char's brightness, right next to it,
+	 * halfway between every two chars, at the 0 and 1 bounds and at random brightness values.
+	 */
+	@Test
+	void sameAsLinearScanTest() {
+		Random random = new Random(SEED);
+		for (int n = 0; n < CHAR_SETS; n++) {
+			float[] charBrightness = new float[1 + random.nextInt(MAX_CHARS)];
+			for (int i = 0; i < charBrightness.length; i++) {
+				charBrightness[i] = random.nextBoolean() ? random.nextInt(LEVELS + 1) / (float) LEVELS :
+						random.nextFloat();
+			}
+			CharBrightnessIndex index = new CharBrightnessIndex(charBrightness);
+			for (float brightness : queries(charBrightness, random)) {
+				assertEquals(linearScan(charBrightness, brightness), index.closestCharIndex(brightness),
+						"brightness " + brightness + " in charSet " + Arrays.toString(charBrightness));
+			}
+		}
+	}
+
+	/**
+	 * Test charSets whose chars are all equally bright, which the linear stretch turns into NaN values: the first
+	 * char is always chosen.
+	 */
+	@Test
+	void equallyBrightCharsTest() {
+		for (int length = 1; length <= 4; length++) {
+			float[] charBrightness = new float[length];
+			Arrays.fill(charBrightness, Float.NaN);
+			CharBrightnessIndex index = new CharBrightnessIndex(charBrightness);
+			for (float brightness : new float[]{0, 0.25f, 0.5f, 1}) {
+				assertEquals(linearScan(charBrightness, brightness), index.closestCharIndex(brightness));
+				assertEquals(0, index.closestCharIndex(brightness));
+			}
+		}
+	}
+
+	/**
+	 * Test that among chars at the same distance, above and below the brightness or of the same brightness, the
+	 * first one of the charSet is chosen.
+	 */
+	@Test
+	void tiesTest() {
+		float[] charBrightness = {1, 0.75f, 0.25f, 0.75f, 0, 0.25f};
+		CharBrightnessIndex index = new CharBrightnessIndex(charBrightness);
+		assertEquals(1, index.closestCharIndex(0.75f));
+		assertEquals(2, index.closestCharIndex(0.25f));
+		assertEquals(1, index.closestCharIndex(0.5f));
+		assertEquals(2, index.closestCharIndex(0.125f));
+		assertEquals(4, index.closestCharIndex(0));
+		assertEquals(0, index.closestCharIndex(1));
+	}
+
+	/* The brightness values to look up in a charSet. */
+	private static List<Float> queries(float[] charBrightness, Random random) {
+		List<Float> queries = new ArrayList<>(List.of(0f, 1f, Math.nextUp(0f), Math.nextDown(1f)));
+		for (float first : charBrightness) {
+			queries.add(first);
+			queries.add(Math.nextUp(first));
+			queries.add(Math.nextDown(first));
+			for (float second : charBrightness) {
+				queries.add((first + second) / 2);
+			}
+		}
+		for (int i = 0; i < RANDOM_QUERIES; i++) {
+			queries.add(random.nextFloat());
+		}
+		queries.removeIf(brightness -> brightness < 0 || brightness > 1);
+		return queries;
+	}
+
+	/* The linear scan of the charSet: the first char strictly closer than all the chars before it, starting from a
+	distance of 1 and from the first char. */
+	private static int linearScan(float[] charBrightness, float brightness) {
+		int bestCharIndex = 0;
+		float bestDistance = 1;
+		for (int i = 0; i < charBrightness.length; i++) {
+			float distance = Math.abs(charBrightness[i] - brightness);
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				bestCharIndex = i;
+			}
+		}
+		return bestCharIndex;
+	}
+}
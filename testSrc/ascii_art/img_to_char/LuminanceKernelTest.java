@@ -0,0 +1,133 @@
+package ascii_art.img_to_char;
+
+import image.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * <B>Tests for the Vector API LuminanceKernel,</B> which must compute exactly the same grey levels, and so the same
+ * brightness, as the scalar one. Skipped unless the tests run with --add-modules jdk.incubator.vector.
+ */
+public class LuminanceKernelTest {
+
+	private static final String IMAGES_DIR = "testSrc/images/";
+	private static final long SEED = 22;
+	private static final int MAX_LENGTH = 100;
+	private static final int ROWS_PER_LENGTH = 20;
+	private static final int[] CHANNEL_EDGES = {0, 1, 127, 128, 254, 255};
+	private static final LuminanceLut[] LUTS = {LuminanceLut.ENCODED, LuminanceLut.LINEARIZED};
+
+	private boolean vectorBefore;
+	private LuminanceKernel scalarKernel;
+	private LuminanceKernel vectorKernel;
+
+	@BeforeEach
+	void loadKernels() {
+		vectorBefore = LuminanceTable.usesVectorKernel();
+		assertTrue(LuminanceTable.useVectorKernel(false));
+		scalarKernel = LuminanceTable.kernel();
+		assumeTrue(LuminanceTable.useVectorKernel(true), "jdk.incubator.vector isn't available");
+		vectorKernel = LuminanceTable.kernel();
+	}
+
+	@AfterEach
+	void restoreKernel() {
+		assertTrue(LuminanceTable.useVectorKernel(vectorBefore));
+	}
+
+	/**
+	 * Test random rows of every length up to a few vector lengths, so that the tail after the last full vector is
+	 * covered, with both lookup tables.
+	 */
+	@Test
+	void randomGreyLevelsTest() {
+		Random random = new Random(SEED);
+		for (int length = 0; length <= MAX_LENGTH; length++) {
+			for (int i = 0; i < ROWS_PER_LENGTH; i++) {
+				int[] pixels = new int[length];
+				for (int j = 0; j < length; j++) {
+					pixels[j] = random.nextInt();
+				}
+				checkSameGreyLevels(pixels);
+			}
+		}
+	}
+
+	/**
+	 * Test every combination of the channel values at the edges of the lookup tables and of the fixed-point
+	 * rounding, with any alpha.
+	 */
+	@Test
+	void channelEdgesGreyLevelsTest() {
+		int[] pixels = new int[CHANNEL_EDGES.length * CHANNEL_EDGES.length * CHANNEL_EDGES.length];
+		int i = 0;
+		for (int red : CHANNEL_EDGES) {
+			for (int green : CHANNEL_EDGES) {
+				for (int blue : CHANNEL_EDGES) {
+					pixels[i] = (i * 37 & 0xFF) << 24 | red << 16 | green << 8 | blue;
+					i++;
+				}
+			}
+		}
+		checkSameGreyLevels(pixels);
+	}
+
+	/**
+	 * Test that the summed-area tables and the pyramids of images hold the same sums with both kernels, so that every
+	 * SubImage has exactly the same brightness.
+	 */
+	@Test
+	void sameBrightnessTest() {
+		for (String imageName : new String[]{"mario", "landscape"}) {
+			Image nativeSize = Image.fromFileNativeSize(IMAGES_DIR + imageName + ".jpeg", 0);
+			Image padded = Image.fromFile(IMAGES_DIR + imageName + ".jpeg");
+			assertNotNull(nativeSize);
+			assertNotNull(padded);
+			for (LuminanceLut lut : LUTS) {
+				assertTrue(LuminanceTable.useVectorKernel(false));
+				LuminanceTable scalarTable = new LuminanceTable(nativeSize, lut);
+				LuminancePyramid scalarPyramid = new LuminancePyramid(padded, lut);
+				assertTrue(LuminanceTable.useVectorKernel(true));
+				LuminanceTable vectorTable = new LuminanceTable(nativeSize, lut);
+				LuminancePyramid vectorPyramid = new LuminancePyramid(padded, lut);
+				for (int x = 0; x < nativeSize.getHeight(); x += 7) {
+					for (int y = 0; y < nativeSize.getWidth(); y += 5) {
+						assertEquals(scalarTable.greySum(0, 0, x, y), vectorTable.greySum(0, 0, x, y),
+								imageName + " rows " + x + ", cols " + y);
+					}
+				}
+				for (int subImageSize = 2; vectorPyramid.hasLevel(subImageSize); subImageSize *= 2) {
+					for (int row = 0; row < padded.getHeight(); row += subImageSize) {
+						for (int col = 0; col < padded.getWidth(); col += subImageSize) {
+							assertEquals(scalarPyramid.averageBrightness(row, col, subImageSize),
+									vectorPyramid.averageBrightness(row, col, subImageSize),
+									imageName + " SubImage " + row + ", " + col + " of " + subImageSize);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/* Asserts that both kernels give every pixel of a row the grey level of the lookup table. */
+	private void checkSameGreyLevels(int[] pixels) {
+		for (LuminanceLut lut : LUTS) {
+			int[] expected = new int[pixels.length];
+			for (int i = 0; i < pixels.length; i++) {
+				expected[i] = lut.greyLevel(pixels[i]);
+			}
+			int[] scalarGreyLevels = new int[pixels.length];
+			int[] vectorGreyLevels = new int[pixels.length];
+			scalarKernel.greyLevels(pixels, scalarGreyLevels, pixels.length, lut);
+			vectorKernel.greyLevels(pixels, vectorGreyLevels, pixels.length, lut);
+			assertArrayEquals(expected, scalarGreyLevels);
+			assertArrayEquals(expected, vectorGreyLevels);
+		}
+	}
+}
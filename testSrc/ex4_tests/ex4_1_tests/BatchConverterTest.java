@@ -0,0 +1,47 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.BatchConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the BatchConverter Class.</B>
+ */
+public class BatchConverterTest {
+
+	private static final Path IMAGE = Paths.get(BrightnessImgCharMatcherTest.TESTS_DIR + "images/mario" +
+			BrightnessImgCharMatcherTest.JPEG);
+	private static final Character[] digits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+
+	/**
+	 * Test that every format writes its file and counts the image as converted.
+	 */
+	@Test
+	void convertedTest(@TempDir Path outputDir) throws InterruptedException {
+		for (String format : new String[]{BatchConverter.HTML_FORMAT, BatchConverter.GZIP_HTML_FORMAT,
+				BatchConverter.COLOR_HTML_FORMAT, BatchConverter.TEXT_FORMAT}) {
+			assertEquals(1, new BatchConverter(List.of(IMAGE), digits, 32, format, outputDir, 1).run(), format);
+			assertTrue(Files.isRegularFile(outputDir.resolve(IMAGE.getFileName() + "." + format)), format);
+		}
+	}
+
+	/**
+	 * Test that an output file that can't be written counts as a failed conversion in every format.
+	 */
+	@Test
+	void failedWriteTest(@TempDir Path tempDir) throws IOException, InterruptedException {
+		Path notADirectory = Files.createFile(tempDir.resolve("file"));
+		for (String format : new String[]{BatchConverter.HTML_FORMAT, BatchConverter.GZIP_HTML_FORMAT,
+				BatchConverter.COLOR_HTML_FORMAT, BatchConverter.TEXT_FORMAT}) {
+			assertEquals(0, new BatchConverter(List.of(IMAGE), digits, 32, format, notADirectory, 1).run(), format);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_output.AsciiOutput;
+import ascii_output.ColorHtmlAsciiOutput;
+import ascii_output.HtmlAsciiOutput;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the ColorHtmlAsciiOutput Class.</B>
+ */
+public class ColorHtmlAsciiOutputTest {
+
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final int RED = 0xFF0000;
+	private static final int BLUE = 0x0000FF;
+	private static final char[][] chars = {{'a', 'b', ' ', 'c'}, {'a', '<', 'b', ' '}};
+	private static final int[][] colors = {{RED, RED, BLUE, RED}, {RED, 0x123456, BLUE, BLUE}};
+	private static final String FIRST_ROW = "<span style=\"color:#f00\">ab c</span>";
+	private static final String SECOND_ROW = "<span style=\"color:#f00\">a</span><span style=\"color:#135\">&lt;</span>" +
+			"<span style=\"color:#00f\">b </span>";
+
+	/**
+	 * Test that runs of chars of the same quantized color share a span, that spaces don't break a run, and that
+	 * chars are escaped inside the spans.
+	 */
+	@Test
+	void coloredRowsTest() throws IOException {
+		String page = write(new ColorHtmlAsciiOutput("unused.html", FONT), chars, colors);
+		assertTrue(page.contains(FIRST_ROW + System.lineSeparator()), page);
+		assertTrue(page.contains(SECOND_ROW + System.lineSeparator()), page);
+	}
+
+	/**
+	 * Test that the file written by output has the same colored rows.
+	 */
+	@Test
+	void outputFileTest(@TempDir Path tempDir) throws IOException {
+		Path file = tempDir.resolve("colors.html");
+		new ColorHtmlAsciiOutput(file.toString(), FONT).output(chars, colors);
+		String page = new String(Files.readAllBytes(file), Charset.defaultCharset());
+		assertTrue(page.contains(FIRST_ROW), page);
+		assertTrue(page.contains(SECOND_ROW), page);
+	}
+
+	/**
+	 * Test that the entry points without colors write the same valid page as HtmlAsciiOutput, in the default color.
+	 */
+	@Test
+	void noColorsTest(@TempDir Path tempDir) throws IOException {
+		ColorHtmlAsciiOutput output = new ColorHtmlAsciiOutput("unused.html", FONT);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new HtmlAsciiOutput("unused.html", FONT).write(chars, Channels.newChannel(expected));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		output.write(chars, Channels.newChannel(bytes));
+		assertArrayEquals(expected.toByteArray(), bytes.toByteArray());
+		String page = bytes.toString(Charset.defaultCharset());
+		assertFalse(page.contains("<span"), page);
+		assertTrue(page.contains("a&lt;b " + System.lineSeparator()), page);
+
+		AsciiOutput asciiOutput = new ColorHtmlAsciiOutput(tempDir.resolve("output.html").toString(), FONT);
+		asciiOutput.output(chars);
+		assertArrayEquals(expected.toByteArray(), Files.readAllBytes(tempDir.resolve("output.html")));
+		Path file = tempDir.resolve("writeFile.html");
+		new ColorHtmlAsciiOutput(file.toString(), FONT).writeFile(chars);
+		assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file));
+	}
+
+	/**
+	 * Test that one instance writes pages with different colors from several threads at the same time.
+	 */
+	@Test
+	void sharedInstanceTest() throws Exception {
+		ColorHtmlAsciiOutput output = new ColorHtmlAsciiOutput("unused.html", FONT);
+		int[][] blue = {{BLUE, BLUE, BLUE, BLUE}, {BLUE, BLUE, BLUE, BLUE}};
+		String redPage = write(output, chars, colors);
+		String bluePage = write(output, chars, blue);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				boolean red = i % 2 == 0;
+				results.add(executor.submit(() -> write(output, chars, red ? colors : blue).equals(
+						red ? redPage : bluePage)));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/* Writes a page to memory and decodes it. */
+	private static String write(ColorHtmlAsciiOutput output, char[][] chars, int[][] colors) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		output.write(chars, colors, Channels.newChannel(bytes));
+		return bytes.toString(Charset.defaultCharset());
+	}
+}
@@ -0,0 +1,83 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_output.ConsoleAsciiOutput;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the ANSI mode of the ConsoleAsciiOutput Class.</B>
+ */
+public class ConsoleAsciiOutputTest {
+
+	private static final String NL = System.lineSeparator();
+	private static final String HOME = "\u001b[H";
+	private static final String ERASE_LINE = "\u001b[K";
+	private static final String ERASE_SCREEN = "\u001b[J";
+	private static final char[][] FIRST = {{'a', 'b', 'c'}, {'d', 'e', 'f'}};
+	private static final char[][] SECOND = {{'a', 'b', 'c'}, {'d', 'x', 'y'}};
+	private static final char[][] THIRD = {{'z', 'b', 'c'}, {'d', 'x', 'w'}};
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	/**
+	 * Test that the first frame is drawn whole from the top left of the screen, and that the next frames only move
+	 * the cursor to each run of changed cells and then below the frame.
+	 */
+	@Test
+	void frameDiffTest() {
+		ConsoleAsciiOutput output = new ConsoleAsciiOutput(stream(), false, true);
+		assertEquals(HOME + "abc" + ERASE_LINE + NL + "def" + ERASE_LINE + NL + ERASE_SCREEN, print(output, FIRST));
+		assertEquals("\u001b[2;2Hxy\u001b[3;1H", print(output, SECOND));
+		assertEquals("\u001b[1;1Hz\u001b[2;3Hw\u001b[3;1H", print(output, THIRD));
+		assertEquals("\u001b[3;1H", print(output, THIRD));
+	}
+
+	/**
+	 * Test that the cursor moves count the space after every char.
+	 */
+	@Test
+	void spacedFrameDiffTest() {
+		ConsoleAsciiOutput output = new ConsoleAsciiOutput(stream(), true, true);
+		assertEquals(HOME + "a b c " + ERASE_LINE + NL + "d e f " + ERASE_LINE + NL + ERASE_SCREEN,
+				print(output, FIRST));
+		assertEquals("\u001b[2;3Hx y \u001b[3;1H", print(output, SECOND));
+	}
+
+	/**
+	 * Test that after other output, and after a change of dimensions, the next frame is drawn whole again.
+	 */
+	@Test
+	void redrawTest() {
+		ConsoleAsciiOutput output = new ConsoleAsciiOutput(stream(), false, true);
+		print(output, FIRST);
+		output.redrawNextFrame();
+		assertEquals(HOME + "abc" + ERASE_LINE + NL + "dxy" + ERASE_LINE + NL + ERASE_SCREEN, print(output, SECOND));
+		assertEquals(HOME + "ab" + ERASE_LINE + NL + ERASE_SCREEN, print(output, new char[][]{{'a', 'b'}}));
+	}
+
+	/**
+	 * Test that without ANSI mode frames are printed whole, without escape codes.
+	 */
+	@Test
+	void plainTest() {
+		ConsoleAsciiOutput output = new ConsoleAsciiOutput(stream(), false, false);
+		assertEquals("abc" + NL + "def" + NL, print(output, FIRST));
+		assertEquals("abc" + NL + "dxy" + NL, print(output, SECOND));
+	}
+
+	private PrintStream stream() {
+		return new PrintStream(bytes, false, StandardCharsets.UTF_8);
+	}
+
+	/* Outputs a frame and returns what it printed. */
+	private String print(ConsoleAsciiOutput output, char[][] chars) {
+		bytes.reset();
+		output.output(chars);
+		return bytes.toString(StandardCharsets.UTF_8);
+	}
+}
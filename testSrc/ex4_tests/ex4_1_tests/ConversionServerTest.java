@@ -0,0 +1,148 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.ConversionServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the ConversionServer Class.</B>
+ */
+public class ConversionServerTest {
+
+	private static final String IMAGE = BrightnessImgCharMatcherTest.TESTS_DIR + "images/mario" +
+			BrightnessImgCharMatcherTest.JPEG;
+	private static final int CONCURRENT_REQUESTS = 16;
+	private static final int CHUNK_SIZE = 1024;
+
+	private ConversionServer server;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = new ConversionServer(0);
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop();
+	}
+
+	/**
+	 * Test that an image file sent as the body gives the same text as the same image file given by its path.
+	 */
+	@Test
+	void uploadSameAsPathTest() throws IOException {
+		String query = "?chars=0-9&charsInRow=32&format=txt";
+		Response byPath = request("GET", query + "&path=" + IMAGE, null);
+		Response byUpload = request("POST", query, Files.readAllBytes(Paths.get(IMAGE)));
+		assertEquals(200, byPath.status);
+		assertEquals(200, byUpload.status);
+		assertArrayEquals(byPath.body, byUpload.body);
+		assertTrue(new String(byPath.body).lines().allMatch(line -> line.matches("[0-9]*")));
+	}
+
+	/**
+	 * Test that invalid requests are rejected.
+	 */
+	@Test
+	void invalidRequestsTest() throws IOException {
+		assertEquals(400, request("GET", "?path=" + IMAGE + "&charsInRow=0", null).status);
+		assertEquals(400, request("GET", "?path=" + IMAGE + "&format=pdf", null).status);
+		assertEquals(400, request("GET", "", null).status);
+		assertEquals(422, request("GET", "?path=" + IMAGE + ".missing", null).status);
+		assertEquals(422, request("POST", "", new byte[]{1, 2, 3}).status);
+	}
+
+	/**
+	 * Test that an image file larger than the server's limit is rejected, whether its length is announced or it is
+	 * sent in chunks.
+	 */
+	@Test
+	void uploadTooLargeTest() throws IOException {
+		byte[] image = Files.readAllBytes(Paths.get(IMAGE));
+		server.stop();
+		server = new ConversionServer(0, image.length - 1);
+		server.start();
+		assertEquals(413, request("POST", "?format=txt", image).status);
+		assertEquals(413, request("POST", "?format=txt", image, true).status);
+		server.stop();
+		server = new ConversionServer(0, image.length);
+		server.start();
+		assertEquals(200, request("POST", "?format=txt", image).status);
+		assertEquals(200, request("POST", "?format=txt", image, true).status);
+	}
+
+	/**
+	 * Test that identical concurrent requests all get the same response, computing it at most once per request.
+	 */
+	@Test
+	void concurrentRequestsTest() throws Exception {
+		String query = "?path=" + IMAGE + "&charsInRow=128";
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+		try {
+			List<Future<Response>> responses = new ArrayList<>();
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				responses.add(clients.submit(() -> request("GET", query, null)));
+			}
+			byte[] expected = responses.get(0).get().body;
+			for (Future<Response> response : responses) {
+				assertEquals(200, response.get().status);
+				assertArrayEquals(expected, response.get().body);
+			}
+		} finally {
+			clients.shutdown();
+		}
+		assertEquals(CONCURRENT_REQUESTS, server.getConversions() + server.getCoalescedRequests());
+	}
+
+	/* Sends a request to the server and reads its response. */
+	private Response request(String method, String query, byte[] body) throws IOException {
+		return request(method, query, body, false);
+	}
+
+	/* Sends a request to the server, with a chunked body if asked, and reads its response. */
+	private Response request(String method, String query, byte[] body, boolean chunked) throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + ConversionServer.CONTEXT + query);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			if (chunked) {
+				connection.setChunkedStreamingMode(CHUNK_SIZE);
+			}
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body);
+			}
+		}
+		int status = connection.getResponseCode();
+		try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			return new Response(status, in.readAllBytes());
+		}
+	}
+
+	private static final class Response {
+		final int status;
+		final byte[] body;
+
+		Response(int status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+}
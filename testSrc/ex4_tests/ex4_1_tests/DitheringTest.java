@@ -0,0 +1,114 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import ascii_art.img_to_char.ErrorDiffusion;
+import image.Image;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the dithering of the BrightnessImgCharMatcher Class.</B>
+ */
+public class DitheringTest {
+
+	private static final String IMAGES_DIR = BrightnessImgCharMatcherTest.TESTS_DIR + "images/";
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final String MARIO = IMAGES_DIR + "mario" + BrightnessImgCharMatcherTest.JPEG;
+	private static final Character[] digits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+	private static final Character[] blackAndWhite = {'#', ' '};
+	private static final int SIZE = 256;
+	private static final int GREY = 0x40;
+
+	/**
+	 * Test that every kernel gives the dimensions and chars of the plain conversion, and the same chars where the
+	 * image is white (the padding above the image), which leaves no error to spread.
+	 */
+	@Test
+	void ditheredCharsTest() {
+		Image img = Image.fromFile(MARIO);
+		assertNotNull(img);
+		BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, FONT);
+		char[][] plain = matcher.chooseChars(64, digits);
+		for (ErrorDiffusion diffusion : ErrorDiffusion.values()) {
+			char[][] dithered = matcher.chooseDitheredChars(64, digits, diffusion);
+			assertEquals(plain.length, dithered.length, diffusion.toString());
+			for (char[] row : dithered) {
+				assertEquals(plain[0].length, row.length, diffusion.toString());
+				for (char c : row) {
+					assertTrue(Arrays.asList(digits).contains(c), diffusion + ": unexpected char " + (int) c);
+				}
+			}
+			assertArrayEquals(plain[0], dithered[0], diffusion.toString());
+		}
+	}
+
+	/**
+	 * Test that dithering changes the chars of the image itself, which has brightness levels between those of the
+	 * digits.
+	 */
+	@Test
+	void ditheringChangesCharsTest() {
+		Image img = Image.fromFile(MARIO);
+		assertNotNull(img);
+		BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, FONT);
+		char[][] plain = matcher.chooseChars(128, digits);
+		assertFalse(Arrays.deepEquals(plain, matcher.chooseDitheredChars(128, digits,
+				ErrorDiffusion.FLOYD_STEINBERG)));
+	}
+
+	/**
+	 * Test that on a uniform grey between a black and a white char, where plain matching gives a single char,
+	 * Floyd-Steinberg mixes the two chars in the ratio of the grey's brightness, and Atkinson, which spreads 3/4 of
+	 * the error only, mixes them with fewer white chars.
+	 */
+	@Test
+	void uniformGreyRatioTest() throws IOException {
+		Image img = uniformImage(GREY << 16 | GREY << 8 | GREY);
+		BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, FONT);
+		int numCharsInRow = 64;
+		for (char[] row : matcher.chooseChars(numCharsInRow, blackAndWhite)) {
+			for (char c : row) {
+				assertEquals('#', c);
+			}
+		}
+		for (ErrorDiffusion diffusion : ErrorDiffusion.values()) {
+			char[][] dithered = matcher.chooseDitheredChars(numCharsInRow, blackAndWhite, diffusion);
+			int white = 0, total = 0;
+			for (char[] row : dithered) {
+				for (char c : row) {
+					white += c == ' ' ? 1 : 0;
+					total++;
+				}
+			}
+			double whiteRatio = (double) white / total;
+			if (diffusion == ErrorDiffusion.FLOYD_STEINBERG) {
+				assertEquals(GREY / 255.0, whiteRatio, 0.01);
+			}
+			else {
+				assertTrue(whiteRatio > 0 && whiteRatio < GREY / 255.0, diffusion + ": " + whiteRatio);
+			}
+		}
+	}
+
+	/* A square image of a single color, opened from the bytes of a PNG file. */
+	private static Image uniformImage(int rgb) throws IOException {
+		BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				image.setRGB(x, y, rgb);
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", bytes);
+		Image img = Image.fromBytes(bytes.toByteArray(), 0);
+		assertNotNull(img);
+		return img;
+	}
+}
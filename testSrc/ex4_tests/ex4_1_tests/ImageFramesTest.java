@@ -0,0 +1,121 @@
+package ex4_tests.ex4_1_tests;
+
+import image.Image;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for reading the frames of an animation from a directory or a multi-image file.</B>
+ */
+public class ImageFramesTest {
+
+	private static final int WIDTH = 5;
+	private static final int HEIGHT = 3;
+
+	/**
+	 * Test that numbered frames are read in the natural order of their numbers, at their own dimensions, and that
+	 * files that aren't images are skipped instead of failing the whole animation.
+	 */
+	@Test
+	void directoryFramesTest(@TempDir Path dir) throws IOException {
+		int[] numbers = {10, 2, 1, 11, 9};
+		for (int number : numbers) {
+			writeFrame(dir.resolve("frame" + number + ".png"), number);
+		}
+		Files.write(dir.resolve("desktop.ini"), "[.ShellClassInfo]".getBytes());
+		Files.write(dir.resolve("Thumbs.db"), new byte[]{0, 1, 2, 3});
+		Iterator<Image> frames = Image.framesFromFile(dir.toString());
+		assertNotNull(frames);
+		for (int number : new int[]{1, 2, 9, 10, 11}) {
+			assertTrue(frames.hasNext());
+			Image frame = frames.next();
+			assertEquals(color(number), frame.getRGB(0, 0) & 0xFFFFFF, "frame " + number);
+			assertEquals(WIDTH, frame.getWidth());
+			assertEquals(HEIGHT, frame.getHeight());
+		}
+		assertFalse(frames.hasNext());
+		assertThrows(NoSuchElementException.class, frames::next);
+	}
+
+	/**
+	 * Test that the frames are decoded one at a time: the frames before a corrupt one are read, and the corrupt one
+	 * fails only when it is reached.
+	 */
+	@Test
+	void lazyFramesTest(@TempDir Path dir) throws IOException {
+		writeFrame(dir.resolve("frame1.png"), 1);
+		Files.write(dir.resolve("frame2.png"), new byte[]{1, 2, 3, 4});
+		writeFrame(dir.resolve("frame3.png"), 3);
+		Iterator<Image> frames = Image.framesFromFile(dir.toString());
+		assertNotNull(frames);
+		assertEquals(color(1), frames.next().getRGB(0, 0) & 0xFFFFFF);
+		assertThrows(UncheckedIOException.class, frames::next);
+		assertEquals(color(3), frames.next().getRGB(0, 0) & 0xFFFFFF);
+		assertFalse(frames.hasNext());
+	}
+
+	/**
+	 * Test that the images of an animated GIF are read one at a time, in order, at the dimensions of the GIF.
+	 */
+	@Test
+	void gifFramesTest(@TempDir Path dir) throws IOException {
+		int[] colors = {0xFF0000, 0x00FF00, 0x0000FF};
+		Path gif = dir.resolve("animation.gif");
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+		try (ImageOutputStream output = ImageIO.createImageOutputStream(gif.toFile())) {
+			writer.setOutput(output);
+			writer.prepareWriteSequence(null);
+			for (int color : colors) {
+				BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+				for (int x = 0; x < WIDTH; x++) {
+					for (int y = 0; y < HEIGHT; y++) {
+						image.setRGB(x, y, color);
+					}
+				}
+				writer.writeToSequence(new IIOImage(image, null, null), null);
+			}
+			writer.endWriteSequence();
+		} finally {
+			writer.dispose();
+		}
+		Iterator<Image> frames = Image.framesFromFile(gif.toString());
+		assertNotNull(frames);
+		for (int color : colors) {
+			assertTrue(frames.hasNext());
+			Image frame = frames.next();
+			assertEquals(color, frame.getRGB(0, 0) & 0xFFFFFF);
+			assertEquals(WIDTH, frame.getWidth());
+			assertEquals(HEIGHT, frame.getHeight());
+		}
+		assertFalse(frames.hasNext());
+	}
+
+	/* Writes a frame of a single color that tells its number. */
+	private static void writeFrame(Path file, int number) throws IOException {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < WIDTH; x++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				image.setRGB(x, y, color(number));
+			}
+		}
+		assertTrue(ImageIO.write(image, "png", file.toFile()));
+	}
+
+	private static int color(int number) {
+		return number * 0x100A01;
+	}
+}
@@ -0,0 +1,85 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import image.Image;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the weighting of the grey levels as stored or converted from sRGB to linear light.</B>
+ */
+public class LinearizedLuminanceTest {
+
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final Character[] charSet = {'#', ' '};
+	private static final int MID_GREY = 0x808080;
+	private static final int SIZE = 16;
+
+	/**
+	 * Test that a mid grey (128 in every channel) is closer to white as stored, and closer to black in linear light
+	 * (about 0.22).
+	 */
+	@Test
+	void midGreyTest() throws IOException {
+		Image img = uniformImage(MID_GREY);
+		assertEquals(' ', new BrightnessImgCharMatcher(img, FONT).chooseChars(1, charSet)[0][0]);
+		BrightnessImgCharMatcher linearized = new BrightnessImgCharMatcher(img, FONT);
+		linearized.useLinearizedLuminance(true);
+		assertEquals('#', linearized.chooseChars(1, charSet)[0][0]);
+	}
+
+	/**
+	 * Test that switching the weighting of a matcher that already converted the image applies to every matching
+	 * mode, like on a new matcher, and doesn't change the other matchers.
+	 */
+	@Test
+	void switchUsedMatcherTest() throws IOException {
+		Image img = uniformImage(MID_GREY);
+		BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, FONT);
+		BrightnessImgCharMatcher other = new BrightnessImgCharMatcher(img, FONT);
+		assertEquals(' ', matcher.chooseChars(1, charSet)[0][0]);
+		assertEquals(' ', matcher.chooseColoredChars(1, charSet).getChars()[0][0]);
+		assertEquals(' ', other.chooseChars(1, charSet)[0][0]);
+		matcher.useLinearizedLuminance(true);
+		assertEquals('#', matcher.chooseChars(1, charSet)[0][0]);
+		assertEquals('#', matcher.remapChars(charSet)[0][0]);
+		assertEquals('#', matcher.chooseColoredChars(1, charSet).getChars()[0][0]);
+		assertEquals(' ', other.chooseChars(1, charSet)[0][0]);
+		matcher.useLinearizedLuminance(false);
+		assertEquals(' ', matcher.chooseChars(1, charSet)[0][0]);
+	}
+
+	/**
+	 * Test that white and black stay the brightest and the darkest in linear light.
+	 */
+	@Test
+	void blackAndWhiteTest() throws IOException {
+		BrightnessImgCharMatcher white = new BrightnessImgCharMatcher(uniformImage(0xFFFFFF), FONT);
+		BrightnessImgCharMatcher black = new BrightnessImgCharMatcher(uniformImage(0), FONT);
+		white.useLinearizedLuminance(true);
+		black.useLinearizedLuminance(true);
+		assertEquals(' ', white.chooseChars(1, charSet)[0][0]);
+		assertEquals('#', black.chooseChars(1, charSet)[0][0]);
+	}
+
+	/* A square image of a single color, opened from the bytes of a PNG file. */
+	private static Image uniformImage(int rgb) throws IOException {
+		BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				image.setRGB(x, y, rgb);
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", bytes);
+		Image img = Image.fromBytes(bytes.toByteArray(), 0);
+		assertNotNull(img);
+		return img;
+	}
+}
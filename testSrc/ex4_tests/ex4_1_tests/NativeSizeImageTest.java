@@ -0,0 +1,116 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import image.Image;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for images opened at their own dimensions, without padding,</B>
+ * whose last row and col of SubImages may be partial.
+ */
+public class NativeSizeImageTest {
+
+	private static final String IMAGES_DIR = BrightnessImgCharMatcherTest.TESTS_DIR + "images/";
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final Character[] charSet = BrightnessImgCharMatcherTest.charSet;
+	private static final String MARIO = IMAGES_DIR + "mario" + BrightnessImgCharMatcherTest.JPEG;
+	private static final String BOARD = IMAGES_DIR + "board" + BrightnessImgCharMatcherTest.JPEG;
+
+	/**
+	 * Test that the image keeps the dimensions of the file.
+	 */
+	@Test
+	void nativeDimensionsTest() throws IOException {
+		BufferedImage decoded = ImageIO.read(new File(MARIO));
+		Image img = Image.fromFileNativeSize(MARIO, 0);
+		assertNotNull(img);
+		assertEquals(decoded.getWidth(), img.getWidth());
+		assertEquals(decoded.getHeight(), img.getHeight());
+	}
+
+	/**
+	 * Test that the partial SubImages on the edges get chars of the charSet, and that rows never get more chars
+	 * than requested.
+	 */
+	@Test
+	void partialSubImagesTest() {
+		Image img = Image.fromFileNativeSize(MARIO, 0);
+		int numCharsInRow = 64;
+		char[][] chars = new BrightnessImgCharMatcher(img, FONT).chooseChars(numCharsInRow, charSet);
+		for (char[] row : chars) {
+			assertTrue(row.length <= numCharsInRow, "too many chars in a row: " + row.length);
+			for (char c : row) {
+				assertTrue(Arrays.asList(charSet).contains(c), "unexpected char " + (int) c);
+			}
+		}
+	}
+
+	/**
+	 * Test that a width that isn't a multiple of the number of chars in a row gives at most that number of chars,
+	 * in every matching mode.
+	 */
+	@Test
+	void charsInRowNotDividingWidthTest() throws IOException {
+		Image img = Image.fromBytes(pngBytes(1000, 600), 0);
+		assertNotNull(img);
+		BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, FONT);
+		for (int numCharsInRow : new int[]{3, 128, 333, 999}) {
+			int subImageSize = (img.getWidth() + numCharsInRow - 1) / numCharsInRow;
+			int charRows = (img.getHeight() + subImageSize - 1) / subImageSize;
+			int charCols = (img.getWidth() + subImageSize - 1) / subImageSize;
+			assertTrue(charCols <= numCharsInRow);
+			assertEquals(charRows, matcher.chooseChars(numCharsInRow, charSet).length);
+			assertEquals(charCols, matcher.chooseChars(numCharsInRow, charSet)[0].length);
+			assertEquals(charCols, matcher.chooseShapeChars(numCharsInRow, charSet)[0].length);
+			assertEquals(charCols, matcher.chooseColoredChars(numCharsInRow, charSet).getChars()[0].length);
+		}
+	}
+
+	/**
+	 * Test that an image whose dimensions are already a power of 2 gives the same chars as the padded image.
+	 */
+	@Test
+	void powerOfTwoSameAsPaddedTest() {
+		Image nativeImg = Image.fromFileNativeSize(BOARD, 0);
+		Image paddedImg = Image.fromFile(BOARD);
+		for (int numCharsInRow : new int[]{4, 16, 32}) {
+			assertArrayEquals(new BrightnessImgCharMatcher(paddedImg, FONT).chooseChars(numCharsInRow, charSet),
+					new BrightnessImgCharMatcher(nativeImg, FONT).chooseChars(numCharsInRow, charSet));
+		}
+	}
+
+	/**
+	 * Test that partial SubImages give the same chars serially and in parallel.
+	 */
+	@Test
+	void parallelPartialSubImagesTest() {
+		Image img = Image.fromFileNativeSize(MARIO, 0);
+		for (int numCharsInRow : new int[]{16, 64, 100}) {
+			assertArrayEquals(new BrightnessImgCharMatcher(img, FONT).chooseChars(numCharsInRow, charSet),
+					new BrightnessImgCharMatcher(img, FONT, 4).chooseChars(numCharsInRow, charSet));
+		}
+	}
+
+	/* The bytes of a PNG file of a horizontal gradient. */
+	private static byte[] pngBytes(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int grey = x * 255 / width;
+				image.setRGB(x, y, grey << 16 | grey << 8 | grey);
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", bytes);
+		return bytes.toByteArray();
+	}
+}
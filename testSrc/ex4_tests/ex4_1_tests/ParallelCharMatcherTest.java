@@ -0,0 +1,107 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import image.Image;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the parallel conversion of the BrightnessImgCharMatcher Class.</B>
+ * The parallel conversion must choose exactly the same chars as the serial one.
+ */
+public class ParallelCharMatcherTest {
+
+	private static final String IMAGES_DIR = BrightnessImgCharMatcherTest.TESTS_DIR + "images/";
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final Character[] charSet = BrightnessImgCharMatcherTest.charSet;
+	private static final int MATCHERS = 20;
+	private static final int PARALLELISM = 3;
+	private static final int CONVERTING_THREADS = 8;
+	private static final int[] NUM_CHARS_IN_ROW = {32, 50, 64, 100};
+
+	/**
+	 * Test that a small image gives the same chars serially and in parallel.
+	 */
+	@Test
+	void parallelSmallTest() {
+		checkSameAsSerial("board", 4, 16, 32);
+	}
+
+	/**
+	 * Test that a large image gives the same chars serially and in parallel.
+	 */
+	@Test
+	void parallelLargeTest() {
+		checkSameAsSerial("landscape", 64, 512, 2048);
+	}
+
+	/**
+	 * Test that matchers of the same parallelism share their threads instead of each starting its own.
+	 */
+	@Test
+	void sharedThreadsTest() {
+		Image img = Image.fromFile(IMAGES_DIR + "board" + BrightnessImgCharMatcherTest.JPEG);
+		assertNotNull(img);
+		long threadsBefore = forkJoinThreads();
+		for (int i = 0; i < MATCHERS; i++) {
+			assertNotNull(new BrightnessImgCharMatcher(img, FONT, PARALLELISM).chooseChars(32, charSet));
+		}
+		assertTrue(forkJoinThreads() <= threadsBefore + PARALLELISM,
+				"from " + threadsBefore + " to " + forkJoinThreads() + " threads");
+	}
+
+	/**
+	 * Test that threads converting with the same matcher at once, at resolutions whose brightness isn't computed yet,
+	 * get the same chars as a matcher used by a single thread.
+	 */
+	@Test
+	void concurrentConversionsTest() throws Exception {
+		Image img = Image.fromFileNativeSize(IMAGES_DIR + "mario" + BrightnessImgCharMatcherTest.JPEG, 0);
+		assertNotNull(img);
+		BrightnessImgCharMatcher serialMatcher = new BrightnessImgCharMatcher(img, FONT);
+		BrightnessImgCharMatcher sharedMatcher = new BrightnessImgCharMatcher(img, FONT, PARALLELISM);
+		ExecutorService threads = Executors.newFixedThreadPool(CONVERTING_THREADS);
+		try {
+			List<Future<char[][]>> results = new ArrayList<>();
+			for (int i = 0; i < CONVERTING_THREADS; i++) {
+				int numCharsInRow = NUM_CHARS_IN_ROW[i % NUM_CHARS_IN_ROW.length];
+				results.add(threads.submit(() -> sharedMatcher.chooseChars(numCharsInRow, charSet)));
+			}
+			for (int i = 0; i < CONVERTING_THREADS; i++) {
+				int numCharsInRow = NUM_CHARS_IN_ROW[i % NUM_CHARS_IN_ROW.length];
+				assertArrayEquals(serialMatcher.chooseChars(numCharsInRow, charSet), results.get(i).get(),
+						numCharsInRow + " chars in row");
+			}
+		} finally {
+			threads.shutdown();
+		}
+	}
+
+	/* The number of live threads of ForkJoinPools other than the common pool. */
+	private static long forkJoinThreads() {
+		return Thread.getAllStackTraces().keySet().stream().filter(thread -> thread.isAlive() &&
+				thread.getName().startsWith("ForkJoinPool-")).count();
+	}
+
+	/* Converts the image serially and with a few parallelism levels and compares the results. */
+	private void checkSameAsSerial(String imageName, int... numCharsInRowValues) {
+		Image img = Image.fromFile(IMAGES_DIR + imageName + BrightnessImgCharMatcherTest.JPEG);
+		assertNotNull(img);
+		BrightnessImgCharMatcher serialMatcher = new BrightnessImgCharMatcher(img, FONT);
+		for (int parallelism : new int[]{2, 3, 8}) {
+			BrightnessImgCharMatcher parallelMatcher = new BrightnessImgCharMatcher(img, FONT, parallelism);
+			for (int numCharsInRow : numCharsInRowValues) {
+				assertArrayEquals(serialMatcher.chooseChars(numCharsInRow, charSet),
+						parallelMatcher.chooseChars(numCharsInRow, charSet),
+						"parallelism " + parallelism + ", " + numCharsInRow + " chars in row");
+			}
+		}
+	}
+}
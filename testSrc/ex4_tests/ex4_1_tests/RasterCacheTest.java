@@ -0,0 +1,150 @@
+package ex4_tests.ex4_1_tests;
+
+import image.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the on-disk cache of decoded rasters.</B>
+ */
+public class RasterCacheTest {
+
+	private static final String IMAGES_DIR = BrightnessImgCharMatcherTest.TESTS_DIR + "images/";
+	private static final Path BOARD = Paths.get(IMAGES_DIR + "board" + BrightnessImgCharMatcherTest.JPEG);
+	private static final Path MARIO = Paths.get(IMAGES_DIR + "mario" + BrightnessImgCharMatcherTest.JPEG);
+	private static final int MAGIC = 0x41535243;
+	private static final int VERSION = 1;
+	private static final int HEADER_INTS = 5;
+	private static final int MARKED_PIXEL = 0xFF123456;
+
+	@TempDir
+	Path tempDir;
+
+	@AfterEach
+	void stopCaching() {
+		assertTrue(Image.useRasterCache(null));
+	}
+
+	/**
+	 * Test that a cached raster is written in the documented format, and that the next load reads its pixels from
+	 * it instead of decoding the image file again.
+	 */
+	@Test
+	void roundTripTest() throws IOException {
+		Path source = Files.copy(BOARD, tempDir.resolve("board.jpeg"));
+		Image decoded = Image.fromFileNativeSize(source.toString(), 0);
+		assertNotNull(decoded);
+		Path cacheDir = tempDir.resolve("cache");
+		assertTrue(Image.useRasterCache(cacheDir.toString()));
+		assertSamePixels(decoded, Image.fromFileNativeSize(source.toString(), 0));
+		List<Path> rasters = rasters(cacheDir);
+		assertEquals(1, rasters.size());
+		ByteBuffer raster = ByteBuffer.wrap(Files.readAllBytes(rasters.get(0))).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(MAGIC, raster.getInt(0));
+		assertEquals(VERSION, raster.getInt(Integer.BYTES));
+		assertEquals(decoded.getWidth(), raster.getInt(2 * Integer.BYTES));
+		assertEquals(decoded.getHeight(), raster.getInt(3 * Integer.BYTES));
+		int headerBytes = (HEADER_INTS * Integer.BYTES + raster.getInt(4 * Integer.BYTES) + Integer.BYTES - 1) /
+				Integer.BYTES * Integer.BYTES;
+		assertEquals(headerBytes + decoded.getWidth() * decoded.getHeight() * Integer.BYTES, raster.capacity());
+		for (int x = 0; x < decoded.getHeight(); x++) {
+			for (int y = 0; y < decoded.getWidth(); y++) {
+				assertEquals(decoded.getRGB(x, y),
+						raster.getInt(headerBytes + (x * decoded.getWidth() + y) * Integer.BYTES));
+			}
+		}
+		raster.putInt(headerBytes, MARKED_PIXEL);
+		Files.write(rasters.get(0), raster.array());
+		Image cached = Image.fromFileNativeSize(source.toString(), 0);
+		assertEquals(MARKED_PIXEL, cached.getRGB(0, 0));
+		assertEquals(decoded.getRGB(0, 1), cached.getRGB(0, 1));
+	}
+
+	/**
+	 * Test that a source whose modification time or size changed is decoded and cached again.
+	 */
+	@Test
+	void invalidationTest() throws IOException {
+		Path source = Files.copy(BOARD, tempDir.resolve("image.jpeg"));
+		Path cacheDir = tempDir.resolve("cache");
+		assertTrue(Image.useRasterCache(cacheDir.toString()));
+		assertNotNull(Image.fromFileNativeSize(source.toString(), 0));
+		assertEquals(1, rasters(cacheDir).size());
+		assertNotNull(Image.fromFileNativeSize(source.toString(), 0));
+		assertEquals(1, rasters(cacheDir).size());
+		FileTime modified = Files.getLastModifiedTime(source);
+		Files.setLastModifiedTime(source, FileTime.fromMillis(modified.toMillis() + 10_000));
+		assertNotNull(Image.fromFileNativeSize(source.toString(), 0));
+		assertEquals(2, rasters(cacheDir).size());
+		Files.copy(MARIO, source, StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(source, modified);
+		Image replaced = Image.fromFileNativeSize(source.toString(), 0);
+		assertEquals(3, rasters(cacheDir).size());
+		assertTrue(Image.useRasterCache(null));
+		assertSamePixels(Image.fromFileNativeSize(MARIO.toString(), 0), replaced);
+	}
+
+	/**
+	 * Test that the least recently used rasters are deleted once the cache goes over its bound, and that a raster
+	 * larger than the bound isn't cached.
+	 */
+	@Test
+	void sizeBoundTest() throws IOException {
+		Path first = Files.copy(BOARD, tempDir.resolve("first.jpeg"));
+		Path second = Files.copy(BOARD, tempDir.resolve("second.jpeg"));
+		Path probeDir = tempDir.resolve("probe");
+		assertTrue(Image.useRasterCache(probeDir.toString()));
+		assertNotNull(Image.fromFileNativeSize(first.toString(), 0));
+		long rasterBytes = Files.size(rasters(probeDir).get(0));
+
+		Path cacheDir = tempDir.resolve("cache");
+		assertTrue(Image.useRasterCache(cacheDir.toString(), rasterBytes + rasterBytes / 2));
+		assertNotNull(Image.fromFileNativeSize(first.toString(), 0));
+		assertEquals(1, rasters(cacheDir).size());
+		assertNotNull(Image.fromFileNativeSize(second.toString(), 0));
+		List<Path> rasters = rasters(cacheDir);
+		assertEquals(1, rasters.size());
+		assertNotNull(Image.fromFileNativeSize(first.toString(), 0));
+		assertEquals(1, rasters(cacheDir).size());
+		assertNotEquals(rasters, rasters(cacheDir));
+
+		Path tinyDir = tempDir.resolve("tiny");
+		assertTrue(Image.useRasterCache(tinyDir.toString(), rasterBytes - 1));
+		assertNotNull(Image.fromFileNativeSize(first.toString(), 0));
+		assertTrue(rasters(tinyDir).isEmpty());
+	}
+
+	/* The cached rasters of a cache directory. */
+	private static List<Path> rasters(Path cacheDir) throws IOException {
+		try (Stream<Path> files = Files.list(cacheDir)) {
+			return files.filter(file -> file.toString().endsWith(".raster")).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/* Asserts that two images have the same dimensions and pixels. */
+	private static void assertSamePixels(Image expected, Image actual) {
+		assertNotNull(actual);
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int x = 0; x < expected.getHeight(); x++) {
+			for (int y = 0; y < expected.getWidth(); y++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import image.Image;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the remapChars method of the BrightnessImgCharMatcher Class.</B>
+ * Remapping to another charSet must choose exactly the same chars as converting again with it.
+ */
+public class RemapCharsTest {
+
+	private static final String IMAGES_DIR = BrightnessImgCharMatcherTest.TESTS_DIR + "images/";
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final Character[] charSet = BrightnessImgCharMatcherTest.charSet;
+
+	/**
+	 * Test that remapping gives the same chars as chooseChars, for a smaller and a larger charSet.
+	 */
+	@Test
+	void remapSameAsChooseCharsTest() {
+		Image img = Image.fromFile(IMAGES_DIR + "mario" + BrightnessImgCharMatcherTest.JPEG);
+		assertNotNull(img);
+		Character[] smallerCharSet = Arrays.copyOf(charSet, charSet.length / 2);
+		Character[] largerCharSet = Arrays.copyOf(charSet, charSet.length + 2);
+		largerCharSet[charSet.length] = '.';
+		largerCharSet[charSet.length + 1] = '%';
+		BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, FONT);
+		BrightnessImgCharMatcher freshMatcher = new BrightnessImgCharMatcher(img, FONT);
+		matcher.chooseChars(64, charSet);
+		assertArrayEquals(freshMatcher.chooseChars(64, smallerCharSet), matcher.remapChars(smallerCharSet));
+		assertArrayEquals(freshMatcher.chooseChars(64, largerCharSet), matcher.remapChars(largerCharSet));
+	}
+
+	/**
+	 * Test that remapping before any conversion fails.
+	 */
+	@Test
+	void remapBeforeChooseCharsTest() {
+		Image img = Image.fromFile(IMAGES_DIR + "board" + BrightnessImgCharMatcherTest.JPEG);
+		assertNotNull(img);
+		assertThrows(IllegalStateException.class, () -> new BrightnessImgCharMatcher(img, FONT).remapChars(charSet));
+	}
+}
@@ -0,0 +1,55 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import image.Image;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the shape matching of the BrightnessImgCharMatcher Class,</B>
+ * which chooses the char whose glyph differs from the thresholded SubImage in the fewest cells.
+ */
+public class ShapeMatchingTest {
+
+	private static final String IMAGES_DIR = BrightnessImgCharMatcherTest.TESTS_DIR + "images/";
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final String MARIO = IMAGES_DIR + "mario" + BrightnessImgCharMatcherTest.JPEG;
+
+	/**
+	 * Test that every SubImage gets a char of the charSet, and that the white padding above the image gets the
+	 * space.
+	 */
+	@Test
+	void shapeCharsTest() {
+		Character[] charSet = new Character[95];
+		for (int i = 0; i < charSet.length; i++) {
+			charSet[i] = (char) (' ' + i);
+		}
+		Image img = Image.fromFile(MARIO);
+		assertNotNull(img);
+		char[][] chars = new BrightnessImgCharMatcher(img, FONT).chooseShapeChars(64, charSet);
+		for (char[] row : chars) {
+			for (char c : row) {
+				assertTrue(c >= ' ' && c <= '~', "unexpected char " + (int) c);
+			}
+		}
+		char[] blankRow = new char[chars[0].length];
+		Arrays.fill(blankRow, ' ');
+		assertArrayEquals(blankRow, chars[0]);
+	}
+
+	/**
+	 * Test that the parallel shape matching gives the same chars as the serial one.
+	 */
+	@Test
+	void parallelShapeCharsTest() {
+		Image img = Image.fromFile(MARIO);
+		assertNotNull(img);
+		Character[] charSet = BrightnessImgCharMatcherTest.charSet;
+		assertArrayEquals(new BrightnessImgCharMatcher(img, FONT).chooseShapeChars(128, charSet),
+				new BrightnessImgCharMatcher(img, FONT, 4).chooseShapeChars(128, charSet));
+	}
+}
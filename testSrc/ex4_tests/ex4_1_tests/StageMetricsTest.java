@@ -0,0 +1,118 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import image.Image;
+import metrics.StageMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the per-stage metrics the Shell's stats command reports.</B>
+ */
+public class StageMetricsTest {
+
+	private static final String IMAGE = BrightnessImgCharMatcherTest.TESTS_DIR + "images/mario" +
+			BrightnessImgCharMatcherTest.JPEG;
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final Character[] charSet = BrightnessImgCharMatcherTest.charSet;
+	// a SubImage size that isn't a power of 2, so the brightness comes from a single summed-area table
+	private static final int NUM_CHARS_IN_ROW = 100;
+	private static final double MILLIS_ROUNDING = 0.1;
+	private static final String NOT_AVAILABLE = "-";
+
+	/**
+	 * Test that a conversion counts the runs and the items of every stage it goes through, in the unit of the stage,
+	 * and that a second conversion at the same resolution reuses the brightness of the SubImages.
+	 */
+	@Test
+	void conversionStatsTest() {
+		StageMetrics.reset();
+		Image img = Image.fromFileNativeSize(IMAGE, 0);
+		assertNotNull(img);
+		long pixels = (long) img.getWidth() * img.getHeight();
+		BrightnessImgCharMatcher matcher = new BrightnessImgCharMatcher(img, FONT);
+		char[][] chars = matcher.chooseChars(NUM_CHARS_IN_ROW, charSet);
+		long tiles = (long) chars.length * chars[0].length;
+		Map<String, StageRow> report = report();
+		checkStage(report.get("decode"), 1, pixels, "pixels");
+		checkStage(report.get("brightness"), 1, pixels, "pixels");
+		checkStage(report.get("grid"), 1, tiles, "tiles");
+		checkStage(report.get("match"), 1, tiles, "tiles");
+		checkStage(report.get("output"), 0, 0, null);
+
+		matcher.chooseChars(NUM_CHARS_IN_ROW, charSet);
+		report = report();
+		checkStage(report.get("brightness"), 1, pixels, "pixels");
+		checkStage(report.get("grid"), 1, tiles, "tiles");
+		checkStage(report.get("match"), 2, 2 * tiles, "tiles");
+	}
+
+	/**
+	 * Test that a reset clears the runs, items, times and allocations of every stage.
+	 */
+	@Test
+	void resetTest() {
+		Image img = Image.fromFileNativeSize(IMAGE, 0);
+		assertNotNull(img);
+		assertNotNull(new BrightnessImgCharMatcher(img, FONT).chooseChars(NUM_CHARS_IN_ROW, charSet));
+		assertTrue(report().get("match").runs > 0);
+		StageMetrics.reset();
+		Map<String, StageRow> report = report();
+		assertEquals(6, report.size());
+		for (StageRow row : report.values()) {
+			checkStage(row, 0, 0, null);
+			assertEquals(NOT_AVAILABLE, row.allocatedKb, row.name);
+		}
+	}
+
+	/* Asserts the runs and items of a stage, and that its times and throughput agree with them. */
+	private static void checkStage(StageRow row, long runs, long items, String unit) {
+		assertNotNull(row);
+		assertEquals(runs, row.runs, row.name + " runs");
+		assertEquals(items, row.items, row.name + " items");
+		assertTrue(row.totalMillis >= 0, row.name + " total ms");
+		if (runs == 0) {
+			assertEquals(0, row.totalMillis, row.name + " total ms");
+			assertEquals(0, row.averageMillis, row.name + " avg ms");
+			assertEquals(NOT_AVAILABLE, row.itemsPerSecond, row.name + " items/s");
+			return;
+		}
+		assertEquals(row.totalMillis / runs, row.averageMillis, MILLIS_ROUNDING, row.name + " avg ms");
+		assertTrue(row.itemsPerSecond.equals(NOT_AVAILABLE) || row.itemsPerSecond.endsWith(" " + unit),
+				row.name + " items/s: " + row.itemsPerSecond);
+	}
+
+	/* Parses the report of StageMetrics, by stage name. */
+	private static Map<String, StageRow> report() {
+		String[] lines = StageMetrics.report().split("\\R");
+		Map<String, StageRow> rows = new HashMap<>();
+		for (int i = 1; i < lines.length; i++) {
+			String[] fields = lines[i].trim().split("\\s+");
+			StageRow row = new StageRow();
+			row.name = fields[0];
+			row.runs = Long.parseLong(fields[1]);
+			row.items = Long.parseLong(fields[2]);
+			row.totalMillis = Double.parseDouble(fields[3]);
+			row.averageMillis = Double.parseDouble(fields[4]);
+			row.itemsPerSecond = fields[5].equals(NOT_AVAILABLE) ? NOT_AVAILABLE : fields[5] + " " + fields[6];
+			row.allocatedKb = fields[fields.length - 1];
+			rows.put(row.name, row);
+		}
+		return rows;
+	}
+
+	/* One line of the report. */
+	private static class StageRow {
+		String name;
+		long runs;
+		long items;
+		double totalMillis;
+		double averageMillis;
+		String itemsPerSecond;
+		String allocatedKb;
+	}
+}
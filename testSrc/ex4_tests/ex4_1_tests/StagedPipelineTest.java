@@ -0,0 +1,85 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.StagedPipeline;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <B>Tests for the StagedPipeline Class.</B>
+ */
+public class StagedPipelineTest {
+
+	private static final int JOBS = 40;
+
+	/**
+	 * Test that a fast stage before a slow one never gets more jobs ahead than its threads, the queue between them
+	 * and the slow stage's threads hold.
+	 */
+	@Test
+	void backpressureTest() throws InterruptedException {
+		int fastThreads = 3, slowThreads = 1, queueCapacity = 2;
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		StagedPipeline<Integer> pipeline = new StagedPipeline<Integer>(queueCapacity)
+				.addStage("fast", fastThreads, job -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(),
+						Math::max))
+				.addStage("slow", slowThreads, job -> {
+					Thread.sleep(2);
+					inFlight.decrementAndGet();
+				});
+		List<Integer> finished = pipeline.run(jobs());
+		assertEquals(JOBS, finished.size());
+		assertTrue(maxInFlight.get() <= fastThreads + queueCapacity + slowThreads,
+				"jobs ahead of the slow stage: " + maxInFlight.get());
+	}
+
+	/**
+	 * Test that a failed job is dropped without stopping the others, and that the report counts it.
+	 */
+	@Test
+	void failedJobTest() throws InterruptedException {
+		StagedPipeline<Integer> pipeline = new StagedPipeline<Integer>(4)
+				.addStage("first", 2, job -> {
+					if (job == 7) {
+						throw new IllegalStateException("job 7");
+					}
+				})
+				.addStage("second", 2, job -> { });
+		List<Integer> finished = pipeline.run(jobs());
+		assertEquals(JOBS - 1, finished.size());
+		assertFalse(finished.contains(7));
+		String report = pipeline.report();
+		assertTrue(report.contains("first"), report);
+		assertTrue(report.contains("second"), report);
+	}
+
+	/**
+	 * Test that a stage whose task throws an error on every job, such as an OutOfMemoryError on a large image, drops
+	 * the jobs without blocking the stages before it, even with a single thread and a queue of one job.
+	 */
+	@Test
+	void errorInStageTest() {
+		StagedPipeline<Integer> pipeline = new StagedPipeline<Integer>(1)
+				.addStage("first", 1, job -> { })
+				.addStage("failing", 1, job -> {
+					throw new OutOfMemoryError("job " + job);
+				})
+				.addStage("last", 1, job -> { });
+		List<Integer> finished = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> pipeline.run(jobs()));
+		assertTrue(finished.isEmpty());
+	}
+
+	private static List<Integer> jobs() {
+		List<Integer> jobs = new ArrayList<>();
+		for (int i = 0; i < JOBS; i++) {
+			jobs.add(i);
+		}
+		return jobs;
+	}
+}
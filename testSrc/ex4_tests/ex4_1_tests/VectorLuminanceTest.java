@@ -0,0 +1,69 @@
+package ex4_tests.ex4_1_tests;
+
+import ascii_art.img_to_char.BrightnessImgCharMatcher;
+import image.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * <B>Tests for the Vector API computation of the grey levels,</B>
+ * which must choose exactly the same chars as the scalar one. Skipped unless the tests run with
+ * --add-modules jdk.incubator.vector. LuminanceKernelTest compares the grey levels themselves.
+ */
+public class VectorLuminanceTest {
+
+	private static final String IMAGES_DIR = BrightnessImgCharMatcherTest.TESTS_DIR + "images/";
+	private static final String FONT = BrightnessImgCharMatcherTest.FONT;
+	private static final Character[] charSet = BrightnessImgCharMatcherTest.charSet;
+
+	private boolean vectorBefore;
+
+	@BeforeEach
+	void saveComputation() {
+		vectorBefore = BrightnessImgCharMatcher.usesVectorLuminance();
+	}
+
+	@AfterEach
+	void restoreComputation() {
+		assertTrue(BrightnessImgCharMatcher.useVectorLuminance(vectorBefore));
+	}
+
+	/**
+	 * Test that the pyramid (power of 2 SubImages) gives the same chars with both computations.
+	 */
+	@Test
+	void vectorPyramidTest() {
+		checkSameAsScalar(Image.fromFile(IMAGES_DIR + "landscape" + BrightnessImgCharMatcherTest.JPEG),
+				64, 512, 2048);
+	}
+
+	/**
+	 * Test that the summed-area table (other SubImage sizes, partial SubImages, widths that aren't a multiple of the
+	 * vector length) gives the same chars with both computations.
+	 */
+	@Test
+	void vectorTableTest() {
+		checkSameAsScalar(Image.fromFileNativeSize(IMAGES_DIR + "mario" + BrightnessImgCharMatcherTest.JPEG, 0),
+				7, 50, 99);
+	}
+
+	/* Converts the image with the scalar and with the vector computation and compares the results. */
+	private void checkSameAsScalar(Image img, int... numCharsInRowValues) {
+		assertNotNull(img);
+		assumeTrue(BrightnessImgCharMatcher.useVectorLuminance(true), "jdk.incubator.vector isn't available");
+		BrightnessImgCharMatcher vectorMatcher = new BrightnessImgCharMatcher(img, FONT);
+		for (int numCharsInRow : numCharsInRowValues) {
+			vectorMatcher.chooseChars(numCharsInRow, charSet);
+		}
+		assertTrue(BrightnessImgCharMatcher.useVectorLuminance(false));
+		BrightnessImgCharMatcher scalarMatcher = new BrightnessImgCharMatcher(img, FONT);
+		for (int numCharsInRow : numCharsInRowValues) {
+			assertArrayEquals(scalarMatcher.chooseChars(numCharsInRow, charSet),
+					vectorMatcher.chooseChars(numCharsInRow, charSet), numCharsInRow + " chars in row");
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package ascii_art.img_to_char;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorLuminanceKernel class - converts as many pixels at once as the widest int vector of the CPU holds, with the
+ * Vector API. The lookups of the ENCODED tables are the channel values times the channel weights, so every lane
+ * computes exactly the same grey level with integer multiplications and additions. The lookups of the LINEARIZED
+ * tables aren't linear, so they are done one pixel at a time.
+ * Only the grey levels are computed here. Their sums (the prefix sums of the summed-area table and the 2x2 sums of the
+ * pyramid) stay scalar in LuminanceTable and LuminancePyramid: they need long lanes and moving lanes across the
+ * vector, which the incubator API of JDK 17 compiles to slower code than the scalar loops.
+ * Needs the jdk.incubator.vector module (--add-modules jdk.incubator.vector) to compile and run, so it has a source root
+ * of its own, compiled after src into the same output, and is only loaded if the module is there.
+ */
+class VectorLuminanceKernel implements LuminanceKernel {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final int CHANNEL_MASK = 0xFF;
+
+    @Override
+    public void greyLevels(int[] pixels, int[] greyLevels, int length, LuminanceLut lut) {
+        int i = 0;
+        if (!lut.isLinearized()) {
+            for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+                IntVector rgb = IntVector.fromArray(INTS, pixels, i);
+                channel(rgb, 16).mul(LuminanceLut.RED_WEIGHT)
+                        .add(channel(rgb, 8).mul(LuminanceLut.GREEN_WEIGHT))
+                        .add(channel(rgb, 0).mul(LuminanceLut.BLUE_WEIGHT))
+                        .intoArray(greyLevels, i);
+            }
+        }
+        for (; i < length; i++) {
+            greyLevels[i] = lut.greyLevel(pixels[i]);
+        }
+    }
+
+    /**
+     * Extracts a color channel of packed pixels.
+     * @param rgb pixels packed as ARGB ints
+     * @param shift position of the channel's lowest bit
+     * @return the channel of every pixel, between 0 and 255
+     */
+    private static IntVector channel(IntVector rgb, int shift) {
+        return rgb.lanewise(VectorOperators.ASHR, shift).and(CHANNEL_MASK);
+    }
+}